@@ -0,0 +1,216 @@
+package io.github.hzkitty.rapidlayout;
+
+import io.github.hzkitty.rapidlayout.entity.LayoutResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 动态微批调度：并发调用方逐张提交图片，后台线程把等待中的请求合并为最多 maxBatchSize 张的批次，
+ * 通过 {@link RapidLayout#runBatch(List)} 一次推理，再分别完成各自的 future。
+ * <p>
+ * 批次从取到第一个请求开始计时，凑满 maxBatchSize 或等待超过 maxWaitMicros 即发出，空闲时不占用 CPU。
+ * RapidLayout 本身线程安全，同一实例可同时被调度线程和其他调用方直接使用。
+ * <pre>
+ * try (LayoutBatcher batcher = new LayoutBatcher(rapidLayout, 8, 2000)) {
+ *     CompletableFuture&lt;LayoutResult&gt; future = batcher.submit(imageBytes);
+ *     LayoutResult result = future.get();
+ * }
+ * </pre>
+ */
+public class LayoutBatcher implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(LayoutBatcher.class.getName());
+
+    private final RapidLayout layout;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    // 下标为批次大小，值为该大小的批次数
+    private final AtomicLongArray batchSizeCounts;
+    private final Thread worker;
+    // closed 的置位与入队都持有 lock，置位后不会再有请求入队
+    private final Object lock = new Object();
+    private volatile boolean closed;
+
+    /**
+     * @param layout        推理引擎，调度线程通过它发出批次，调用方仍可同时直接使用；close 时不会关闭它
+     * @param maxBatchSize  每批最多图片数
+     * @param maxWaitMicros 取到第一个请求后最多等待的微秒数，0 表示不等待，只合并已在队列中的请求
+     */
+    public LayoutBatcher(RapidLayout layout, int maxBatchSize, long maxWaitMicros) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize " + maxBatchSize + " 必须大于 0");
+        }
+        if (maxWaitMicros < 0) {
+            throw new IllegalArgumentException("maxWaitMicros " + maxWaitMicros + " 不能为负数");
+        }
+        this.layout = layout;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+        this.batchSizeCounts = new AtomicLongArray(maxBatchSize + 1);
+        this.worker = new Thread(this::loop, "layout-batcher");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 提交一张图片
+     *
+     * @param image 图片输入(路径/字节/ByteBuffer/BufferedImage/矩阵)
+     * @return 该图片的识别结果，加载或推理失败时以异常完成
+     */
+    public CompletableFuture<LayoutResult> submit(Object image) {
+        CompletableFuture<LayoutResult> future = new CompletableFuture<>();
+        synchronized (lock) {
+            if (!closed) {
+                queue.add(new Request(image, future));
+                return future;
+            }
+        }
+        future.completeExceptionally(new IllegalStateException("LayoutBatcher 已关闭"));
+        return future;
+    }
+
+    /**
+     * 当前排队等待的请求数（不含正在推理的批次）
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * 批次大小分布，下标 i 为大小为 i 的批次数（下标 0 恒为 0）
+     */
+    public long[] getBatchSizeHistogram() {
+        long[] histogram = new long[batchSizeCounts.length()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = batchSizeCounts.get(i);
+        }
+        return histogram;
+    }
+
+    /**
+     * 停止接收新请求，已排队的请求处理完后调度线程退出
+     */
+    @Override
+    public void close() throws InterruptedException {
+        synchronized (lock) {
+            closed = true;
+        }
+        worker.join();
+        // 调度线程异常退出时遗留的请求
+        List<Request> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        failAll(rest, new IllegalStateException("LayoutBatcher 已关闭"));
+    }
+
+    private void loop() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            try {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed && queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    Request next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                runBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stop(batch, e);
+                return;
+            } catch (Throwable t) {
+                // runBatch 已处理推理异常，这里只兜底意外错误，避免调度线程静默退出后请求永远不完成
+                logger.log(Level.SEVERE, "调度线程异常退出", t);
+                stop(batch, t);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 调度线程退出前停止接收请求，并以 cause 完成当前批次与队列中剩余的请求
+     */
+    private void stop(List<Request> batch, Throwable cause) {
+        synchronized (lock) {
+            closed = true;
+        }
+        queue.drainTo(batch);
+        failAll(batch, cause);
+    }
+
+    private void runBatch(List<Request> batch) {
+        batchSizeCounts.incrementAndGet(batch.size());
+        List<Object> images = new ArrayList<>(batch.size());
+        for (Request request : batch) {
+            images.add(request.image);
+        }
+        List<LayoutResult> results;
+        try {
+            results = layout.runBatch(images);
+        } catch (Error e) {
+            // OOM、本地库链接错误等不逐张重试，整批失败
+            failAll(batch, e);
+            return;
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                batch.get(0).future.completeExceptionally(e);
+                return;
+            }
+            // 一张图片加载失败会使整批失败，逐张重试以便只让出错的请求失败
+            logger.log(Level.FINE, "批量推理失败，逐张重试", e);
+            for (Request request : batch) {
+                try {
+                    request.future.complete(layout.runBatch(Collections.singletonList(request.image)).get(0));
+                } catch (Exception | Error single) {
+                    request.future.completeExceptionally(single);
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future.complete(results.get(i));
+        }
+    }
+
+    private static void failAll(List<Request> batch, Throwable cause) {
+        for (Request request : batch) {
+            request.future.completeExceptionally(cause);
+        }
+    }
+
+    private static class Request {
+        private final Object image;
+        private final CompletableFuture<LayoutResult> future;
+
+        Request(Object image, CompletableFuture<LayoutResult> future) {
+            this.image = image;
+            this.future = future;
+        }
+    }
+}
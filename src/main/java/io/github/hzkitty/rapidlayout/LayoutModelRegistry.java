@@ -0,0 +1,309 @@
+package io.github.hzkitty.rapidlayout;
+
+import io.github.hzkitty.rapidlayout.entity.LayoutConfig;
+import io.github.hzkitty.rapidlayout.entity.LayoutModelType;
+import io.github.hzkitty.rapidlayout.entity.LayoutResult;
+import io.github.hzkitty.rapidlayout.utils.OrtInferSession;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 多模型注册表：按模型类型登记配置，首次请求时才加载对应的 RapidLayout，已加载模型的估算 native 内存超过预算时
+ * 关闭最久未使用且当前没有请求的模型，下次请求时重新加载。
+ * <p>
+ * 所有模型共用进程内唯一的 OrtEnvironment。同一模型的并发首次请求只加载一次，其余请求等待加载完成。
+ * 每个模型的内存占用按加载期间进程 RSS 的增长估算，不低于模型文件大小的两倍；读不到 RSS 的系统按模型文件大小的两倍估算。
+ * 配置同步预热 (warmupRuns &gt; 0 且不开启 asyncWarmup) 时估算包含推理时 arena 的增长，异步预热在采样时仍在进行，不计入。
+ * <p>
+ * 加载串行进行，但不阻塞其他模型的推理：加载期间其他模型有请求时，它们的 arena 增长也会计入 RSS 差值，
+ * 此时估算最多取模型文件大小的 8 倍。估算只在加载时没有其他流量的情况下才接近真实值，
+ * 需要准确的预算时应在接收请求前依次预先加载各模型。
+ * <pre>
+ * try (LayoutModelRegistry registry = new LayoutModelRegistry(2L &lt;&lt; 30)) {
+ *     registry.register(docLayoutConfig);
+ *     registry.register(yoloConfig);
+ *     LayoutResult result = registry.run(LayoutModelType.DOCLAYOUT_DOCSTRUCTBENCH, imageBytes);
+ * }
+ * </pre>
+ */
+public class LayoutModelRegistry implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(LayoutModelRegistry.class.getName());
+
+    // 加载期间有其他模型的请求时，估算内存相对模型文件大小的上限倍数
+    private static final int MAX_FOOTPRINT_FACTOR = 8;
+
+    private final long memoryBudgetBytes;
+    private final Map<LayoutModelType, Entry> entries = new EnumMap<>(LayoutModelType.class);
+    // 串行加载，使 RSS 增长只归属于正在加载的模型
+    private final Object loadLock = new Object();
+    // 以下字段由 this 保护
+    private long usedBytes;
+    // 每次取得模型时递增，也用于判断加载期间是否有其他请求
+    private long clock;
+    private boolean closed;
+
+    /**
+     * @param memoryBudgetBytes 已加载模型估算内存之和的上限，<= 0 表示不限制
+     */
+    public LayoutModelRegistry(long memoryBudgetBytes) {
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    /**
+     * 登记一个模型的配置（以 config.modelType 为键），不加载模型；重复登记同一类型时抛出异常
+     */
+    public synchronized void register(LayoutConfig config) {
+        if (entries.containsKey(config.modelType)) {
+            throw new IllegalArgumentException(config.modelType + " 已登记");
+        }
+        entries.put(config.modelType, new Entry(config));
+    }
+
+    /**
+     * 识别单张图片，模型未加载时先加载
+     *
+     * @param image 图片输入(路径/字节/ByteBuffer/BufferedImage/矩阵)
+     */
+    public LayoutResult run(LayoutModelType modelType, Object image) throws Exception {
+        RapidLayout layout = acquire(modelType);
+        try {
+            return layout.runImpl(image);
+        } finally {
+            release(modelType);
+        }
+    }
+
+    /**
+     * 批量识别，见 {@link RapidLayout#runBatch(List)}
+     */
+    public List<LayoutResult> runBatch(LayoutModelType modelType, List<?> images) throws Exception {
+        RapidLayout layout = acquire(modelType);
+        try {
+            return layout.runBatch(images);
+        } finally {
+            release(modelType);
+        }
+    }
+
+    /**
+     * 当前已加载的模型
+     */
+    public synchronized List<LayoutModelType> getLoadedModels() {
+        List<LayoutModelType> loaded = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.layout != null) {
+                loaded.add(entry.type);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 已加载模型的估算内存之和（字节）
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * 模型加载时估算的内存（字节），未加载时为 0
+     */
+    public synchronized long getFootprintBytes(LayoutModelType modelType) {
+        Entry entry = entries.get(modelType);
+        return entry == null || entry.layout == null ? 0 : entry.footprintBytes;
+    }
+
+    /**
+     * 关闭所有已加载的模型，调用方需保证此时没有进行中的请求
+     */
+    @Override
+    public void close() {
+        List<RapidLayout> loaded = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            for (Entry entry : entries.values()) {
+                if (entry.layout != null) {
+                    loaded.add(entry.layout);
+                    entry.layout = null;
+                }
+            }
+            usedBytes = 0;
+        }
+        for (RapidLayout layout : loaded) {
+            layout.close();
+        }
+    }
+
+    /**
+     * 取得已加载的模型并计入一个进行中的请求，使用完后必须调用 release
+     */
+    private RapidLayout acquire(LayoutModelType modelType) {
+        Entry entry;
+        synchronized (this) {
+            checkOpen();
+            entry = entries.get(modelType);
+            if (entry == null) {
+                throw new IllegalArgumentException(modelType + " 未登记");
+            }
+            if (entry.layout != null) {
+                entry.use(++clock);
+                return entry.layout;
+            }
+        }
+        synchronized (loadLock) {
+            long clockBefore;
+            boolean busy;
+            synchronized (this) {
+                checkOpen();
+                // 等待期间已被其他请求加载
+                if (entry.layout != null) {
+                    entry.use(++clock);
+                    return entry.layout;
+                }
+                clockBefore = clock;
+                busy = hasUsers();
+            }
+            long rssBefore = rssBytes();
+            RapidLayout layout = new RapidLayout(entry.config);
+            long rssDelta = rssBefore < 0 ? -1 : rssBytes() - rssBefore;
+            long size = modelSize(layout.getModelPath());
+            long footprint = Math.max(rssDelta, 2 * size);
+            synchronized (this) {
+                if (closed) {
+                    layout.close();
+                    throw new IllegalStateException("LayoutModelRegistry 已关闭");
+                }
+                if ((busy || clock != clockBefore || hasUsers()) && size > 0 && footprint > MAX_FOOTPRINT_FACTOR * size) {
+                    // RSS 差值混入了其他模型推理的内存增长
+                    logger.info(modelType + " loaded during traffic, estimate capped at " + MAX_FOOTPRINT_FACTOR + "x model size");
+                    footprint = MAX_FOOTPRINT_FACTOR * size;
+                }
+                entry.layout = layout;
+                entry.footprintBytes = footprint;
+                usedBytes += footprint;
+                entry.use(++clock);
+            }
+            logger.info(modelType + " loaded, estimated " + (footprint >> 20) + " MB");
+            evict();
+            return layout;
+        }
+    }
+
+    private void release(LayoutModelType modelType) {
+        synchronized (this) {
+            entries.get(modelType).users--;
+        }
+        evict();
+    }
+
+    /**
+     * 超出预算时按最久未使用的顺序关闭没有进行中请求的模型，都在使用时暂时超出预算
+     */
+    private void evict() {
+        if (memoryBudgetBytes <= 0) {
+            return;
+        }
+        List<RapidLayout> evicted = new ArrayList<>();
+        synchronized (this) {
+            while (usedBytes > memoryBudgetBytes) {
+                Entry victim = null;
+                for (Entry entry : entries.values()) {
+                    if (entry.layout != null && entry.users == 0
+                            && (victim == null || entry.lastUsed < victim.lastUsed)) {
+                        victim = entry;
+                    }
+                }
+                if (victim == null) {
+                    break;
+                }
+                logger.info(victim.type + " evicted, " + (usedBytes >> 20) + " MB used of " + (memoryBudgetBytes >> 20) + " MB budget");
+                evicted.add(victim.layout);
+                victim.layout = null;
+                usedBytes -= victim.footprintBytes;
+            }
+        }
+        for (RapidLayout layout : evicted) {
+            layout.close();
+        }
+    }
+
+    /**
+     * 是否有模型存在进行中的请求，需持有 this 的锁
+     */
+    private boolean hasUsers() {
+        for (Entry entry : entries.values()) {
+            if (entry.users > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("LayoutModelRegistry 已关闭");
+        }
+    }
+
+    /**
+     * 实际加载的模型文件大小，按 OrtInferSession 的模型路径规则读取；读取失败时为 0
+     */
+    private static long modelSize(String modelPath) {
+        try {
+            return Math.max(0, OrtInferSession.modelSize(modelPath));
+        } catch (IOException e) {
+            logger.log(Level.FINE, "无法获取模型大小 " + modelPath, e);
+            return 0;
+        }
+    }
+
+    /**
+     * 进程常驻内存 (Linux /proc/self/status 中的 VmRSS)，读不到时为 -1
+     */
+    private static long rssBytes() {
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D+", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.log(Level.FINE, "无法读取 VmRSS", e);
+        }
+        return -1;
+    }
+
+    private static class Entry {
+        private final LayoutModelType type;
+        private final LayoutConfig config;
+        // 以下字段由注册表的锁保护
+        private RapidLayout layout;
+        private long footprintBytes;
+        private long lastUsed;
+        private int users;
+
+        Entry(LayoutConfig config) {
+            this.type = config.modelType;
+            this.config = config;
+        }
+
+        void use(long tick) {
+            users++;
+            lastUsed = tick;
+        }
+    }
+}
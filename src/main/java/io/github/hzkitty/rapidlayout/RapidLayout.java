@@ -1,35 +1,58 @@
 package io.github.hzkitty.rapidlayout;
 
-import ai.djl.ndarray.NDList;
 import ai.djl.ndarray.NDManager;
 import ai.onnxruntime.OrtException;
 import io.github.hzkitty.rapidlayout.entity.*;
+import io.github.hzkitty.rapidlayout.utils.AutoTuner;
+import io.github.hzkitty.rapidlayout.utils.BufferPool;
 import io.github.hzkitty.rapidlayout.utils.DownloadModel;
 import io.github.hzkitty.rapidlayout.utils.LoadImage;
-import io.github.hzkitty.rapidlayout.utils.NDArrayUtils;
+import io.github.hzkitty.rapidlayout.utils.ModelVariants;
 import io.github.hzkitty.rapidlayout.utils.OrtInferSession;
 import io.github.hzkitty.rapidlayout.utils.post.DocLayoutPostProcess;
 import io.github.hzkitty.rapidlayout.utils.post.PPPostProcess;
 import io.github.hzkitty.rapidlayout.utils.post.YOLOv8PostProcess;
 import io.github.hzkitty.rapidlayout.utils.pre.DocLayoutPreProcess;
 import io.github.hzkitty.rapidlayout.utils.pre.PPPreProcess;
+import io.github.hzkitty.rapidlayout.utils.pre.PreUtils;
 import io.github.hzkitty.rapidlayout.utils.pre.YOLOv8PreProcess;
 import io.github.hzkitty.rapidlayout.utils.OpencvLoader;
+import org.opencv.core.CvType;
 import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
 import org.opencv.core.Size;
 
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import static io.github.hzkitty.rapidlayout.entity.LayoutModelType.*;
 
-public class RapidLayout {
+/**
+ * 版面分析引擎，线程安全：构造后所有成员只读，多个线程可共享同一个实例及其唯一的 ONNX Runtime 会话并发调用 run，
+ * 模型权重只加载一份。每次调用的中间状态（缩放信息、张量、输出）都是局部变量，
+ * 开启 reuseBuffers 时复用的缓冲区按线程隔离。前处理线程池 (preProcessPool) 需在构造前设置。
+ * <p>
+ * 不再使用时调用 {@link #close()} 释放会话占用的 native 内存，关闭后不可再调用 run。
+ */
+public class RapidLayout implements AutoCloseable {
 
     private static final Logger logger = Logger.getLogger(RapidLayout.class.getName());
 
@@ -55,6 +78,8 @@ public class RapidLayout {
 
     // 模型类型
     private final LayoutModelType modelType;
+    // 实际加载的模型路径（按精度选择后的 FP32 或 INT8 变体）
+    private final String modelPath;
     // 推理会话 (ONNX Runtime)
     private final OrtInferSession session;
 
@@ -68,12 +93,22 @@ public class RapidLayout {
     private final DocLayoutPreProcess doclayoutPreProcess;
     private final DocLayoutPostProcess doclayoutPostProcess;
 
-    // 记录各自的输入大小
-    private final int[] yoloInputShape = new int[]{640, 640};
-    private final int[] doclayoutShape = new int[]{1024, 1024};
 
     // 图片加载器
     private final LoadImage loadImg;
+    // 是否按模型输入尺寸缩小解码
+    private final boolean reducedDecode;
+    // 是否复用线程私有的缓冲区（见 BufferPool）
+    private final boolean reuseBuffers;
+    // 是否以 IO 绑定方式推理
+    private final boolean bindIo;
+
+    // 预热结束（无论成功与否，或未配置预热）时计数归零
+    private final CountDownLatch warmedUp = new CountDownLatch(1);
+    // 预热失败时的异常，此时 warmedUp 仍会计数归零以唤醒等待者
+    private volatile Throwable warmupError;
+    // 各批次大小的预热耗时
+    private final List<WarmupTiming> warmupTimings = new CopyOnWriteArrayList<>();
 
     // 用于区分三种模型类型的列表
     private final List<LayoutModelType> ppLayoutType;
@@ -106,29 +141,20 @@ public class RapidLayout {
         // 确定最终模型路径 (本地 or 下载)
 //        String finalModelPath = getModelPath(modelType, config.modelPath);
 
+        // 按精度偏好与 CPU 特性选择 FP32 或 INT8 模型
+        this.modelPath = ModelVariants.select(config.modelPath, modelType, config.precision, config.useCuda);
+
         // 构建 session 配置
         OrtInferConfig inferConfig = new OrtInferConfig();
-        inferConfig.setModelPath(config.modelPath);
+        inferConfig.setModelPath(modelPath);
         inferConfig.setUseCuda(config.useCuda);
         inferConfig.setDeviceId(config.deviceId);
-
-        // 初始化 ONNXRuntime session
-        this.session = new OrtInferSession(inferConfig);
-        List<String> labels = this.session.getCharacterList("character");
-        logger.info(modelType + " contains " + labels);
-
-        // 初始化三种前处理 & 后处理
-        this.ppPreProcess = new PPPreProcess(new Size(608, 800));
-        this.ppPostProcess = new PPPostProcess(labels, config.confThres, config.iouThres);
-
-        this.yoloPreProcess = new YOLOv8PreProcess(yoloInputShape[0], yoloInputShape[1]);
-        this.yoloPostProcess = new YOLOv8PostProcess(labels, config.confThres, config.iouThres);
-
-        this.doclayoutPreProcess  = new DocLayoutPreProcess(doclayoutShape[0], doclayoutShape[1]);
-        this.doclayoutPostProcess = new DocLayoutPostProcess(labels, config.confThres, config.iouThres);
-
-        // 加载图片的工具
-        this.loadImg = new LoadImage();
+        inferConfig.setReuseBuffers(config.reuseBuffers);
+        inferConfig.setIntraOpNumThreads(config.intraOpNumThreads);
+        inferConfig.setInterOpNumThreads(config.interOpNumThreads);
+        inferConfig.setSessionPoolSize(config.sessionPoolSize);
+        inferConfig.setSessionIdleTimeoutMillis(config.sessionIdleTimeoutMillis);
+        inferConfig.setOptimizedModelCacheDir(config.optimizedModelCacheDir);
 
         // 分组三种模型类型
         this.ppLayoutType  = new ArrayList<>();
@@ -144,6 +170,223 @@ public class RapidLayout {
                 docLayoutType.add(k);
             }
         }
+
+        // 初始化 ONNXRuntime session
+        OrtInferSession ortSession = new OrtInferSession(inferConfig);
+
+        // 输入尺寸以模型声明为准，H/W 为动态维度时才使用配置或默认尺寸，并按 stride 对齐做 letterbox
+        long[] modelInputShape = ortSession.getInputShape();
+        boolean dynamicInput = modelInputShape.length != 4 || modelInputShape[2] <= 0 || modelInputShape[3] <= 0;
+        int[] inputSize = dynamicInput
+                ? defaultInputSize(config.inputSize)
+                : new int[]{(int) modelInputShape[3], (int) modelInputShape[2]};
+
+        // 按实际输入尺寸调优线程数与会话拓扑，结果写入 inferConfig 后重建 session
+        if (config.autoTune != null) {
+            Path cacheDir = config.autoTuneCacheDir == null ? null : Paths.get(config.autoTuneCacheDir);
+            try {
+                ortSession.close();
+                AutoTuner.tune(inferConfig, config.autoTune,
+                        AutoTuner.inputShape(modelInputShape, inputSize[0], inputSize[1]), cacheDir).applyTo(inferConfig);
+            } catch (IOException | OrtException e) {
+                throw new RuntimeException(e);
+            }
+            ortSession = new OrtInferSession(inferConfig);
+        }
+        this.session = ortSession;
+        List<String> labels = this.session.getCharacterList("character");
+        logger.info(modelType + " contains " + labels);
+        int stride = dynamicInput && config.letterbox ? inputStride() : 0;
+        logger.info(modelType + " input " + inputSize[0] + "x" + inputSize[1] + (stride > 0 ? ", letterbox stride " + stride : ""));
+
+        // 初始化三种前处理 & 后处理
+        this.ppPreProcess = new PPPreProcess(new Size(inputSize[0], inputSize[1]), stride, config.reuseBuffers, config.preProcessBackend);
+        this.ppPostProcess = new PPPostProcess(labels, config.confThres, config.iouThres);
+
+        this.yoloPreProcess = new YOLOv8PreProcess(inputSize[0], inputSize[1], stride, config.reuseBuffers, config.preProcessBackend);
+        this.yoloPostProcess = new YOLOv8PostProcess(labels, config.confThres, config.iouThres, config.reuseBuffers);
+
+        this.doclayoutPreProcess  = new DocLayoutPreProcess(inputSize[0], inputSize[1], stride, config.reuseBuffers, config.preProcessBackend);
+        this.doclayoutPostProcess = new DocLayoutPostProcess(labels, config.confThres, config.iouThres);
+        if (config.preProcessPool != null) {
+            this.ppPreProcess.setParallel(config.preProcessPool, config.parallelPreProcessThreshold);
+            this.yoloPreProcess.setParallel(config.preProcessPool, config.parallelPreProcessThreshold);
+            this.doclayoutPreProcess.setParallel(config.preProcessPool, config.parallelPreProcessThreshold);
+        }
+
+        // 加载图片的工具
+        this.loadImg = new LoadImage(config.mmapFileInput);
+        this.reducedDecode = config.reducedDecode;
+        this.reuseBuffers = config.reuseBuffers;
+        this.bindIo = config.bindIo;
+
+        // 预热：所有字段已赋值，后台线程启动后可安全使用 this
+        if (config.warmupRuns <= 0) {
+            warmedUp.countDown();
+        } else if (config.asyncWarmup) {
+            Thread thread = new Thread(() -> {
+                try {
+                    warmup(config.warmupRuns, config.warmupBatchSizes, inputSize[0], inputSize[1]);
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "预热失败", e);
+                }
+            }, "layout-warmup");
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            try {
+                warmup(config.warmupRuns, config.warmupBatchSizes, inputSize[0], inputSize[1]);
+            } catch (Exception e) {
+                // 构造失败时调用方拿不到实例，需在此关闭会话（含会话池与回收线程）
+                try {
+                    session.close();
+                } catch (OrtException closeError) {
+                    e.addSuppressed(closeError);
+                }
+                throw e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * 以输入尺寸大小的合成图像对每个批次大小各推理 runs 次，使 arena 扩展、算子选择与 JIT 在接收请求前完成
+     * 成功后 isReady() 为 true；失败时记录异常，isReady() 保持 false，awaitReady() 抛出该异常
+     */
+    private void warmup(int runs, int[] batchSizes, int width, int height) throws Exception {
+        Mat img = new Mat(height, width, CvType.CV_8UC3, new Scalar(255, 255, 255));
+        try {
+            for (int batchSize : batchSizes) {
+                List<Mat> images = Collections.nCopies(batchSize, img);
+                double[] elapse = new double[runs];
+                for (int i = 0; i < runs; i++) {
+                    long start = System.nanoTime();
+                    if (batchSize == 1) {
+                        run(img);
+                    } else {
+                        runBatch(images);
+                    }
+                    elapse[i] = (System.nanoTime() - start) / 1e6;
+                }
+                WarmupTiming timing = new WarmupTiming(batchSize, elapse);
+                warmupTimings.add(timing);
+                logger.info(modelType + " " + timing);
+            }
+        } catch (Exception | Error e) {
+            warmupError = e;
+            throw e;
+        } finally {
+            img.release();
+            warmedUp.countDown();
+        }
+    }
+
+    /**
+     * 预热是否已成功结束（未配置预热时始终为 true），可作为负载均衡的就绪探针；预热失败时始终为 false
+     */
+    public boolean isReady() {
+        return warmedUp.getCount() == 0 && warmupError == null;
+    }
+
+    /**
+     * 等待预热结束
+     *
+     * @return 超时前预热成功结束时为 true
+     * @throws IllegalStateException 预热失败，cause 为预热时的异常
+     */
+    public boolean awaitReady(long timeout, TimeUnit unit) throws InterruptedException {
+        boolean finished = warmedUp.await(timeout, unit);
+        Throwable error = warmupError;
+        if (error != null) {
+            throw new IllegalStateException(modelType + " 预热失败", error);
+        }
+        return finished;
+    }
+
+    /**
+     * 预热失败时的异常，未失败时为 null
+     */
+    public Throwable getWarmupError() {
+        return warmupError;
+    }
+
+    /**
+     * 实际加载的模型路径，precision 为 AUTO/INT8 时可能是 INT8 变体而非 config.modelPath
+     */
+    public String getModelPath() {
+        return modelPath;
+    }
+
+    /**
+     * 已完成的各批次大小的预热耗时曲线
+     */
+    public List<WarmupTiming> getWarmupTimings() {
+        return Collections.unmodifiableList(warmupTimings);
+    }
+
+    /**
+     * 诊断：以该图片前处理后的实际输入对模型做 ONNX Runtime 性能分析，按算子类型与节点汇总耗时
+     * 使用单独的会话，不影响并发的 run；命令行见 {@link io.github.hzkitty.rapidlayout.utils.OrtProfiler}
+     *
+     * @param image 图片输入(路径/字节/ByteBuffer/BufferedImage/矩阵)
+     * @param runs  计入统计的推理次数
+     */
+    public ProfileReport profile(Object image, int runs) throws Exception {
+        try (LoadedImage loaded = this.loadImg.load(image)) {
+            ResizeInfo resizeInfo = resizeInfo(loaded.getOriSize());
+            long[] shape = resizeInfo.getInputShape();
+            FloatBuffer input = PreUtils.allocateTensor(shape);
+            preProcess(loaded.getMat(), resizeInfo, loaded.getChannelOrder(), input);
+            input.rewind();
+            return session.profile(input, shape, runs);
+        }
+    }
+
+    /**
+     * 关闭推理会话，调用方需保证此时没有进行中的 run
+     */
+    @Override
+    public void close() {
+        try {
+            session.close();
+        } catch (OrtException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 动态输入尺寸模型的目标尺寸 {width, height}
+     * @param configSize 配置的边长，<= 0 时按模型类型取默认值
+     */
+    private int[] defaultInputSize(int configSize) {
+        if (configSize > 0) {
+            return new int[]{configSize, configSize};
+        }
+        if (ppLayoutType.contains(modelType)) {
+            return new int[]{608, 800};
+        }
+        if (yoloLayoutType.contains(modelType)) {
+            return new int[]{640, 640};
+        }
+        if (modelType == DOCLAYOUT_D4LA || modelType == DOCLAYOUT_DOCSYNTH) {
+            return new int[]{1600, 1600};
+        }
+        return new int[]{1024, 1024};
+    }
+
+    /**
+     * 缩小解码所需的最小尺寸，即前处理把原图缩放后的尺寸
+     */
+    private Size minDecodeSize(Size oriSize) {
+        ResizeInfo info = resizeInfo(oriSize);
+        return new Size(info.getResizedWidth(), info.getResizedHeight());
+    }
+
+    /**
+     * letterbox 补边对齐的 stride，取检测头的最大下采样倍数
+     */
+    private int inputStride() {
+        // PicoDet 检测头的 stride 为 [8, 16, 32, 64]，YOLOv8 / DocLayout-YOLO 为 [8, 16, 32]
+        return ppLayoutType.contains(modelType) ? 64 : 32;
     }
 
     public LayoutResult run(String imagePath) throws Exception {
@@ -158,6 +401,13 @@ public class RapidLayout {
         return this.runImpl(imageData);
     }
 
+    /**
+     * @param imageData 编码后的图片数据（position 到 limit），直接缓冲区和内存映射缓冲区不经过复制直接解码
+     */
+    public LayoutResult run(ByteBuffer imageData) throws Exception {
+        return this.runImpl(imageData);
+    }
+
     public LayoutResult run(BufferedImage image) throws Exception {
         return this.runImpl(image);
     }
@@ -166,81 +416,249 @@ public class RapidLayout {
         return this.runImpl(mat);
     }
 
+    /**
+     * 批量识别：前处理写入同一个 [N, 3, H, W] 张量，一次 session.run 后按图像拆分后处理
+     * 模型输入尺寸不同的图像（letterbox 下宽高比不同）分组各自成批；模型导出时 batch 维固定的退化为逐张推理
+     * 所有图像在本次调用内同时加载，批次大小由调用方通过 images 的长度控制
+     *
+     * @param images 图片输入(路径/字节/ByteBuffer/BufferedImage/矩阵)
+     * @return 与 images 顺序一致的识别结果，elapse 为所在批次的总耗时
+     */
+    public List<LayoutResult> runBatch(List<?> images) throws Exception {
+        List<LayoutResult> results = new ArrayList<>(images.size());
+        if (!session.isDynamicBatch()) {
+            for (Object image : images) {
+                results.add(runImpl(image));
+            }
+            return results;
+        }
+        List<LoadedImage> loaded = new ArrayList<>(images.size());
+        try {
+            // 1. 加载全部图像，按模型输入尺寸分组
+            ResizeInfo[] resizeInfos = new ResizeInfo[images.size()];
+            Map<String, List<Integer>> groups = new LinkedHashMap<>();
+            for (int i = 0; i < images.size(); i++) {
+                Object image = images.get(i);
+                LoadedImage img = reducedDecode
+                        ? this.loadImg.load(image, this::minDecodeSize)
+                        : this.loadImg.load(image);
+                loaded.add(img);
+                resizeInfos[i] = resizeInfo(img.getOriSize());
+                long[] shape = resizeInfos[i].getInputShape();
+                groups.computeIfAbsent(shape[2] + "x" + shape[3], k -> new ArrayList<>()).add(i);
+            }
+            LayoutResult[] ordered = new LayoutResult[images.size()];
+            for (List<Integer> group : groups.values()) {
+                runGroup(group, loaded, resizeInfos, ordered);
+            }
+            results.addAll(Arrays.asList(ordered));
+            return results;
+        } finally {
+            for (LoadedImage img : loaded) {
+                img.close();
+            }
+        }
+    }
+
+    /**
+     * 同一输入尺寸的一组图像：依次前处理到一个 batch 张量，推理一次，再按 batchId 拆分后处理
+     */
+    private void runGroup(List<Integer> group, List<LoadedImage> loaded, ResizeInfo[] resizeInfos,
+                          LayoutResult[] results) throws OrtException {
+        long startTime = System.currentTimeMillis();
+        long[] shape = resizeInfos[group.get(0)].getInputShape();
+        shape[0] = group.size();
+        FloatBuffer inputTensor = reuseBuffers
+                ? BufferPool.get().floatBuffer("batch.tensor", shape)
+                : PreUtils.allocateTensor(shape);
+        for (int i : group) {
+            LoadedImage img = loaded.get(i);
+            preProcess(img.getMat(), resizeInfos[i], img.getChannelOrder(), inputTensor);
+        }
+        inputTensor.rewind();
+
+        TensorView[] outputs = session.runFlat(inputTensor, shape);
+
+        List<Triple<List<float[]>, List<Float>, List<String>>> triples = new ArrayList<>(group.size());
+        if (ppLayoutType.contains(modelType)) {
+            try (NDManager manager = NDManager.newBaseManager()) {
+                for (int b = 0; b < group.size(); b++) {
+                    // PPPostProcess 的 batch 循环共用一个 ResizeInfo，这里逐张切出单张的输出
+                    triples.add(ppPostProcess.call(manager, resizeInfos[group.get(b)], outputs, b));
+                }
+            }
+        } else {
+            TensorView output = outputs[0];
+            for (int b = 0; b < group.size(); b++) {
+                ResizeInfo info = resizeInfos[group.get(b)];
+                triples.add(yoloLayoutType.contains(modelType)
+                        ? yoloPostProcess.call(output.getBuffer(), output.getShape(), info, b)
+                        : doclayoutPostProcess.call(output.getBuffer(), output.getShape(), info, b));
+            }
+        }
+        double elapse = (System.currentTimeMillis() - startTime) / 1000.0;
+        for (int b = 0; b < group.size(); b++) {
+            Triple<List<float[]>, List<Float>, List<String>> result = triples.get(b);
+            results[group.get(b)] = new LayoutResult(result.getLeft(), result.getMiddle(), result.getRight(), elapse);
+        }
+    }
+
+    private ResizeInfo resizeInfo(Size oriSize) {
+        if (ppLayoutType.contains(modelType)) {
+            return ppPreProcess.resizeInfo(oriSize);
+        }
+        if (yoloLayoutType.contains(modelType)) {
+            return yoloPreProcess.resizeInfo(oriSize);
+        }
+        return doclayoutPreProcess.resizeInfo(oriSize);
+    }
+
+    private void preProcess(Mat img, ResizeInfo info, ChannelOrder order, FloatBuffer dst) {
+        if (ppLayoutType.contains(modelType)) {
+            ppPreProcess.call(img, info, order, dst);
+        } else if (yoloLayoutType.contains(modelType)) {
+            yoloPreProcess.call(img, info, order, dst);
+        } else {
+            doclayoutPreProcess.call(img, info, order, dst);
+        }
+    }
+
+    /**
+     * 逐页识别多页图像（如扫描仪输出的多页 TIFF），单页格式视为只有一页
+     * 返回的迭代器按页序惰性执行：每次 next() 只解码当前页并推理，处理完即释放，内存占用与单页相当
+     * 迭代过程中的加载或推理异常以 RuntimeException 包装抛出
+     *
+     * @param imagePath 图片路径（不支持非 ASCII 路径）
+     * @return 每页的识别结果
+     */
+    public Iterator<LayoutResult> runPages(Path imagePath) throws Exception {
+        int pageCount = this.loadImg.pageCount(imagePath);
+        return new Iterator<LayoutResult>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < pageCount;
+            }
+
+            @Override
+            public LayoutResult next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                try (LoadedImage loaded = loadImg.loadPage(imagePath, next++)) {
+                    return runLoaded(loaded);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
     /**
      * 供外部调用的推理接口
      * @param imgContent  图片输入(路径/字节/矩阵)
      * @return LayoutResult: { boxes, scores, classNames, elapsed }
      */
-    private LayoutResult runImpl(Object imgContent) throws Exception {
-        // 1. 加载图片
-        Mat img = this.loadImg.call(imgContent);
-        Size oriImgShape = img.size();
+    LayoutResult runImpl(Object imgContent) throws Exception {
+        // 1. 加载图片，通道交换留给前处理在归一化时完成；加载时创建的 Mat 在本次调用结束时释放
+        try (LoadedImage loaded = reducedDecode
+                ? this.loadImg.load(imgContent, this::minDecodeSize)
+                : this.loadImg.load(imgContent)) {
+            return runLoaded(loaded);
+        }
+    }
+
+    private LayoutResult runLoaded(LoadedImage loaded) throws OrtException {
+        Mat img = loaded.getMat();
+        ChannelOrder order = loaded.getChannelOrder();
+        // 缩小解码时仍使用原图尺寸计算缩放，前处理直接把缩小后的图像 resize 到同一目标尺寸，框映射回原图坐标
+        Size oriImgShape = loaded.getOriSize();
 
         // 2. 判断模型类型并调用对应逻辑
+        if (bindIo) {
+            return boundLayout(img, order, oriImgShape);
+        }
         if (ppLayoutType.contains(modelType)) {
             try (NDManager manager = NDManager.newBaseManager()) {
-                return ppLayout(manager, img, oriImgShape);
+                return ppLayout(manager, img, order, oriImgShape);
             }
         }
         if (yoloLayoutType.contains(modelType)) {
-            return yolov8Layout(img, oriImgShape);
+            return yolov8Layout(img, order, oriImgShape);
         }
         if (docLayoutType.contains(modelType)) {
-            return doclayoutLayout(img, oriImgShape);
+            return doclayoutLayout(img, order, oriImgShape);
         }
         throw new IllegalArgumentException(modelType + " 不受支持");
     }
 
-    private LayoutResult ppLayout(NDManager manager, Mat img, Size oriImgShape) throws OrtException {
+    private LayoutResult ppLayout(NDManager manager, Mat img, ChannelOrder order, Size oriImgShape) throws OrtException {
         long startTime = System.currentTimeMillis();
 
-        // 1) 前处理 => 返回四维数组(如 float[1][3][H][W])
-        float[][][][] inputData = ppPreProcess.call(img);
+        // 1) 前处理 => 连续存储的 [1, 3, H, W] 张量
+        ResizeInfo resizeInfo = ppPreProcess.resizeInfo(oriImgShape);
+        FloatBuffer inputData = ppPreProcess.call(img, resizeInfo, order);
 
         // 2) session 推理 => 返回网络 preds
-        Object[] outputs = session.run(inputData);
-        // 确保 preds 数组的大小与 outputs 相同
-//        float[][][][] preds = new float[outputs.length][][][];
-        NDList preds = new NDList(outputs.length);
-        // 遍历 outputs 并赋值给 preds
-        for (Object output : outputs) {
-            preds.add(NDArrayUtils.create(manager, (float[][][]) output));
-        }
-        // 3) 后处理 => (boxes, scores, classNames)
-        Triple<List<float[]>, List<Float>, List<String>> result = ppPostProcess.call(manager, oriImgShape, NDArrayUtils.create(manager, inputData), preds);
+        TensorView[] outputs = session.runFlat(inputData, resizeInfo.getInputShape());
+        // 3) 后处理 => (boxes, scores, classNames)，输出按连续存储直接创建 NDArray
+        Triple<List<float[]>, List<Float>, List<String>> result = ppPostProcess.call(manager, resizeInfo, outputs, 0);
         double elapse = (System.currentTimeMillis() - startTime) / 1000.0;
         return new LayoutResult(result.getLeft(), result.getMiddle(), result.getRight(), elapse);
 
     }
 
-    private LayoutResult yolov8Layout(Mat img, Size oriImgShape) throws OrtException {
+    /**
+     * IO 绑定方式：前处理直接写入当前线程绑定的输入张量，输出写入绑定的 buffer 后由后处理按下标读取
+     */
+    private LayoutResult boundLayout(Mat img, ChannelOrder order, Size oriImgShape) throws OrtException {
         long startTime = System.currentTimeMillis();
         // 前处理
-        float[][][][] inputTensor = yoloPreProcess.call(img);
+        ResizeInfo resizeInfo = resizeInfo(oriImgShape);
+        long[] shape = resizeInfo.getInputShape();
+        preProcess(img, resizeInfo, order, session.boundInput(shape));
         // 推理
-        Object[] outputs = session.run(inputTensor);
-        float[][][][] preds = new float[outputs.length][][][];
-        for (int i = 0; i < outputs.length; i++) {
-            preds[i] = (float[][][]) outputs[i];
+        TensorView[] outputs = session.runBound(shape);
+        // 后处理
+        Triple<List<float[]>, List<Float>, List<String>> result;
+        if (ppLayoutType.contains(modelType)) {
+            try (NDManager manager = NDManager.newBaseManager()) {
+                result = ppPostProcess.call(manager, resizeInfo, outputs, 0);
+            }
+        } else if (yoloLayoutType.contains(modelType)) {
+            result = yoloPostProcess.call(outputs[0].getBuffer(), outputs[0].getShape(), resizeInfo, 0);
+        } else {
+            result = doclayoutPostProcess.call(outputs[0].getBuffer(), outputs[0].getShape(), resizeInfo, 0);
         }
-        // 3) 后处理 => (boxes, scores, classNames)
-        Triple<List<float[]>, List<Float>, List<String>> result = yoloPostProcess.call(preds, oriImgShape, this.yoloInputShape);
         double elapse = (System.currentTimeMillis() - startTime) / 1000.0;
         return new LayoutResult(result.getLeft(), result.getMiddle(), result.getRight(), elapse);
     }
 
-    private LayoutResult doclayoutLayout(Mat img, Size oriImgShape) throws OrtException {
+    private LayoutResult yolov8Layout(Mat img, ChannelOrder order, Size oriImgShape) throws OrtException {
         long startTime = System.currentTimeMillis();
         // 前处理
-        float[][][][] inputTensor = doclayoutPreProcess.call(img);
+        ResizeInfo resizeInfo = yoloPreProcess.resizeInfo(oriImgShape);
+        FloatBuffer inputTensor = yoloPreProcess.call(img, resizeInfo, order);
         // 推理
-        Object[] outputs = session.run(inputTensor);
-        float[][][][] preds = new float[outputs.length][][][];
-        for (int i = 0; i < outputs.length; i++) {
-            preds[i] = (float[][][]) outputs[i];
-        }
-        // 3) 后处理 => (boxes, scores, classNames)
-        Triple<List<float[]>, List<Float>, List<String>> result = doclayoutPostProcess.call(preds, oriImgShape, this.doclayoutShape);
+        TensorView[] outputs = session.runFlat(inputTensor, resizeInfo.getInputShape());
+        // 3) 后处理 => (boxes, scores, classNames)，按下标直接读取连续存储的输出
+        Triple<List<float[]>, List<Float>, List<String>> result = yoloPostProcess.call(outputs[0].getBuffer(), outputs[0].getShape(), resizeInfo, 0);
+        double elapse = (System.currentTimeMillis() - startTime) / 1000.0;
+        return new LayoutResult(result.getLeft(), result.getMiddle(), result.getRight(), elapse);
+    }
+
+    private LayoutResult doclayoutLayout(Mat img, ChannelOrder order, Size oriImgShape) throws OrtException {
+        long startTime = System.currentTimeMillis();
+        // 前处理
+        ResizeInfo resizeInfo = doclayoutPreProcess.resizeInfo(oriImgShape);
+        FloatBuffer inputTensor = doclayoutPreProcess.call(img, resizeInfo, order);
+        // 推理
+        TensorView[] outputs = session.runFlat(inputTensor, resizeInfo.getInputShape());
+        // 3) 后处理 => (boxes, scores, classNames)，按下标直接读取连续存储的输出
+        Triple<List<float[]>, List<Float>, List<String>> result = doclayoutPostProcess.call(outputs[0].getBuffer(), outputs[0].getShape(), resizeInfo, 0);
         double elapse = (System.currentTimeMillis() - startTime) / 1000.0;
         return new LayoutResult(result.getLeft(), result.getMiddle(), result.getRight(), elapse);
     }
@@ -21,7 +21,7 @@ public class VisLayout {
      * @param scores     每个检测框对应的置信度分数
      * @param classNames 每个检测框对应的类别名称
      * @param maskAlpha  遮罩透明度，取值范围通常在 [0,1]，值越大遮罩越深
-     * @return           绘制好结果的图像（Mat）
+     * @return           绘制好结果的图像（Mat），新分配的副本，用完后由调用方 release
      */
     public static Mat drawDetections(Mat image, List<float[]> boxes, List<Float> scores, List<String> classNames, float maskAlpha) {
         if (boxes == null || scores == null || classNames == null) {
@@ -170,6 +170,7 @@ public class VisLayout {
                 0.0,              // 亮度调整量
                 image             // 融合到原图
         );
+        maskImg.release();
 
         return image;
     }
@@ -206,6 +207,9 @@ public class VisLayout {
         Mat perspectiveTransform = Imgproc.getPerspectiveTransform(ptsSrc, ptsStd);
         Mat dstImg = new Mat();
         Imgproc.warpPerspective(img, dstImg, perspectiveTransform, new Size((double)imgCropWidth, (double)imgCropHeight), 2, 1);
+        ptsStd.release();
+        ptsSrc.release();
+        perspectiveTransform.release();
         if ((double)dstImg.rows() / (double)dstImg.cols() >= 1.5) {
             Core.rotate(dstImg, dstImg, 0);
         }
@@ -268,6 +272,9 @@ public class VisLayout {
         Rect roi = new Rect(x1, y1, cropWidth, cropHeight);
 
         // 从原图中截取该区域；clone() 以防与原图共享数据导致后续修改冲突
-        return new Mat(image, roi).clone();
+        Mat view = new Mat(image, roi);
+        Mat crop = view.clone();
+        view.release();
+        return crop;
     }
 }
@@ -0,0 +1,16 @@
+package io.github.hzkitty.rapidlayout.entity;
+
+/**
+ * 三通道 8 位图像的通道顺序
+ */
+public enum ChannelOrder {
+    BGR,
+    RGB;
+
+    /**
+     * 转换到 target 顺序是否需要交换 R/B 通道
+     */
+    public boolean needsSwap(ChannelOrder target) {
+        return this != target;
+    }
+}
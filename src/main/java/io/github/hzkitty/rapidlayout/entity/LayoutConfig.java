@@ -1,12 +1,34 @@
 package io.github.hzkitty.rapidlayout.entity;
 
+import java.util.concurrent.ForkJoinPool;
+
 public class LayoutConfig {
 
     public String modelPath = "models/layout_cdla.onnx"; // 模型路径
     public LayoutModelType modelType = LayoutModelType.PP_LAYOUT_CDLA; // 模型类型
+    public ModelPrecision precision = ModelPrecision.FP32; // 模型精度偏好，AUTO 在支持 VNNI/AMX 的 CPU 上优先加载 modelPath 旁的 _int8.onnx 变体（仅 YOLOv8n / DocLayout）
     public boolean useCuda = false; // 是否使用 CUDA
     public int deviceId = 0; // 显卡编号
     public boolean useArena = false; // arena内存池的扩展策略（速度有提升，但内存会剧增，且持续占用，不释放，默认关闭）
+    public boolean reuseBuffers = false; // 每个线程复用按尺寸缓存的前后处理缓冲区，预热后单张图片不再分配大块内存（会常驻占用每线程约数个输入张量大小的内存，默认关闭）
+    public PreProcessBackend preProcessBackend = PreProcessBackend.JAVA; // 前处理实现，OPENCV_DNN 使用 dnn.blobFromImage 在 native 中完成 resize、归一化和 NCHW 排列
+    public ForkJoinPool preProcessPool = null; // 前处理归一化 + permute 按行条带并行使用的线程池，null 时串行；单张大图的低延迟场景可设为 ForkJoinPool.commonPool()
+    public int parallelPreProcessThreshold = 1 << 19; // 模型输入像素数 (H*W) 不小于该值时才并行，默认约 724x724，即 DocLayout 1024/1600 并行、PP/YOLOv8 串行
+    public int inputSize = 0; // 动态输入尺寸模型的目标边长，0 表示按模型类型取默认值（PP 800x608，YOLOv8 640，DocLayout 1024，D4LA 1600）；静态输入尺寸的模型始终使用模型声明的尺寸
+    public boolean letterbox = true; // 动态输入尺寸模型是否等比缩放并只补边到 stride 的整数倍，false 时直接拉伸到 inputSize 的正方形
+    public boolean reducedDecode = false; // JPEG 路径/字节输入按模型输入尺寸以 1/2、1/4、1/8 缩小解码，框仍映射回原图坐标；像素与完整解码后 resize 略有差异，默认关闭
+    public boolean bindIo = false; // IO 绑定方式推理：每个线程按输入形状复用预先创建的输入/输出 OnnxTensor，输出不再转换为多维数组，后处理直接读取输出 buffer（每线程常驻约数份输入输出张量的内存）
+    public boolean mmapFileInput = false; // 文件路径输入通过 FileChannel.map 内存映射后直接交给 imdecode，不产生堆内 byte[]；非 ASCII 路径或 imread 失败时始终内存映射；映射在 GC 回收后才解除，Windows 上期间文件被锁定
+    public int intraOpNumThreads = 0; // 每个会话的算子内线程数，0 表示由 ONNX Runtime 决定（通常为物理核数）
+    public int interOpNumThreads = 0; // 每个会话的算子间线程数，0 表示由 ONNX Runtime 决定
+    public int sessionPoolSize = 1; // 会话数，吞吐优先的批处理可设为 K 个会话 x 2~4 个 intraOpNumThreads，推理分派给并发数最少的会话
+    public long sessionIdleTimeoutMillis = 60000; // 会话池中除第一个外的会话空闲超过该时间后关闭以释放 arena 内存，需要时重新创建；<= 0 时不关闭
+    public TuneGoal autoTune = null; // 启动时按目标自动调优线程数、执行模式与会话数（覆盖上面三项），null 表示不调优
+    public String autoTuneCacheDir = System.getProperty("user.home") + "/.rapidlayout/tune"; // 调优结果按模型哈希与 CPU 型号缓存的目录，null 时每次启动都重新测量
+    public int warmupRuns = 0; // 构造时按实际输入形状做几次合成图像的预热推理，0 表示不预热；预热完成前 RapidLayout.isReady() 为 false
+    public int[] warmupBatchSizes = {1}; // 预热的批次大小，大于 1 的通过 runBatch 预热
+    public boolean asyncWarmup = false; // 是否在后台线程预热，构造立即返回，可通过 isReady()/awaitReady() 判断是否完成
+    public String optimizedModelCacheDir = null; // 图优化后模型的缓存目录（如 ~/.rapidlayout/ort），首次加载时写入 ORT 格式模型，之后直接加载、跳过图优化；按模型哈希、CPU、ONNX Runtime 版本、优化级别与执行设备区分，null 时不缓存
 
     public float confThres = 0.5f; // 置信度阈值 (0~1)
     public float iouThres = 0.5f; // NMS iou阈值 (0~1)
@@ -27,6 +49,14 @@ public class LayoutConfig {
         this.modelType = modelType;
     }
 
+    public ModelPrecision getPrecision() {
+        return precision;
+    }
+
+    public void setPrecision(ModelPrecision precision) {
+        this.precision = precision;
+    }
+
     public boolean isUseCuda() {
         return useCuda;
     }
@@ -51,6 +81,158 @@ public class LayoutConfig {
         this.useArena = useArena;
     }
 
+    public boolean isReuseBuffers() {
+        return reuseBuffers;
+    }
+
+    public void setReuseBuffers(boolean reuseBuffers) {
+        this.reuseBuffers = reuseBuffers;
+    }
+
+    public PreProcessBackend getPreProcessBackend() {
+        return preProcessBackend;
+    }
+
+    public void setPreProcessBackend(PreProcessBackend preProcessBackend) {
+        this.preProcessBackend = preProcessBackend;
+    }
+
+    public ForkJoinPool getPreProcessPool() {
+        return preProcessPool;
+    }
+
+    public void setPreProcessPool(ForkJoinPool preProcessPool) {
+        this.preProcessPool = preProcessPool;
+    }
+
+    public int getParallelPreProcessThreshold() {
+        return parallelPreProcessThreshold;
+    }
+
+    public void setParallelPreProcessThreshold(int parallelPreProcessThreshold) {
+        this.parallelPreProcessThreshold = parallelPreProcessThreshold;
+    }
+
+    public int getInputSize() {
+        return inputSize;
+    }
+
+    public void setInputSize(int inputSize) {
+        this.inputSize = inputSize;
+    }
+
+    public boolean isLetterbox() {
+        return letterbox;
+    }
+
+    public void setLetterbox(boolean letterbox) {
+        this.letterbox = letterbox;
+    }
+
+    public boolean isReducedDecode() {
+        return reducedDecode;
+    }
+
+    public void setReducedDecode(boolean reducedDecode) {
+        this.reducedDecode = reducedDecode;
+    }
+
+    public boolean isBindIo() {
+        return bindIo;
+    }
+
+    public void setBindIo(boolean bindIo) {
+        this.bindIo = bindIo;
+    }
+
+    public boolean isMmapFileInput() {
+        return mmapFileInput;
+    }
+
+    public void setMmapFileInput(boolean mmapFileInput) {
+        this.mmapFileInput = mmapFileInput;
+    }
+
+    public int getIntraOpNumThreads() {
+        return intraOpNumThreads;
+    }
+
+    public void setIntraOpNumThreads(int intraOpNumThreads) {
+        this.intraOpNumThreads = intraOpNumThreads;
+    }
+
+    public int getInterOpNumThreads() {
+        return interOpNumThreads;
+    }
+
+    public void setInterOpNumThreads(int interOpNumThreads) {
+        this.interOpNumThreads = interOpNumThreads;
+    }
+
+    public int getSessionPoolSize() {
+        return sessionPoolSize;
+    }
+
+    public void setSessionPoolSize(int sessionPoolSize) {
+        this.sessionPoolSize = sessionPoolSize;
+    }
+
+    public long getSessionIdleTimeoutMillis() {
+        return sessionIdleTimeoutMillis;
+    }
+
+    public void setSessionIdleTimeoutMillis(long sessionIdleTimeoutMillis) {
+        this.sessionIdleTimeoutMillis = sessionIdleTimeoutMillis;
+    }
+
+    public TuneGoal getAutoTune() {
+        return autoTune;
+    }
+
+    public void setAutoTune(TuneGoal autoTune) {
+        this.autoTune = autoTune;
+    }
+
+    public String getAutoTuneCacheDir() {
+        return autoTuneCacheDir;
+    }
+
+    public void setAutoTuneCacheDir(String autoTuneCacheDir) {
+        this.autoTuneCacheDir = autoTuneCacheDir;
+    }
+
+    public int getWarmupRuns() {
+        return warmupRuns;
+    }
+
+    public void setWarmupRuns(int warmupRuns) {
+        this.warmupRuns = warmupRuns;
+    }
+
+    public int[] getWarmupBatchSizes() {
+        return warmupBatchSizes;
+    }
+
+    public void setWarmupBatchSizes(int[] warmupBatchSizes) {
+        this.warmupBatchSizes = warmupBatchSizes;
+    }
+
+    public boolean isAsyncWarmup() {
+        return asyncWarmup;
+    }
+
+    public void setAsyncWarmup(boolean asyncWarmup) {
+        this.asyncWarmup = asyncWarmup;
+    }
+
+    public String getOptimizedModelCacheDir() {
+        return optimizedModelCacheDir;
+    }
+
+    public void setOptimizedModelCacheDir(String optimizedModelCacheDir) {
+        this.optimizedModelCacheDir = optimizedModelCacheDir;
+    }
+
     public float getConfThres() {
         return confThres;
     }
@@ -0,0 +1,74 @@
+package io.github.hzkitty.rapidlayout.entity;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+
+/**
+ * 加载后的三通道图像及其实际通道顺序，通道交换推迟到前处理中与归一化一起完成
+ * 解码时缩小过的图像同时记录原图尺寸，后处理据此把框映射回原图坐标
+ * <p>
+ * 由加载器创建的 Mat 在 {@link #close()} 时释放 native 内存，直接传入的调用方 Mat 不受影响
+ */
+public class LoadedImage implements AutoCloseable {
+    private final Mat mat;
+    private final ChannelOrder channelOrder;
+    private final Size oriSize;
+    private final boolean owned;
+
+    public LoadedImage(Mat mat, ChannelOrder channelOrder) {
+        this(mat, channelOrder, mat.size(), true);
+    }
+
+    public LoadedImage(Mat mat, ChannelOrder channelOrder, Size oriSize) {
+        this(mat, channelOrder, oriSize, true);
+    }
+
+    /**
+     * @param owned mat 是否由加载器创建，为 true 时 close 释放
+     */
+    public LoadedImage(Mat mat, ChannelOrder channelOrder, Size oriSize, boolean owned) {
+        this.mat = mat;
+        this.channelOrder = channelOrder;
+        this.oriSize = oriSize;
+        this.owned = owned;
+    }
+
+    public Mat getMat() {
+        return mat;
+    }
+
+    public ChannelOrder getChannelOrder() {
+        return channelOrder;
+    }
+
+    /**
+     * @return 原图尺寸，未缩小解码时与 {@link #getMat()} 的尺寸相同
+     */
+    public Size getOriSize() {
+        return oriSize;
+    }
+
+    /**
+     * @return 是否在解码时缩小过
+     */
+    public boolean isReduced() {
+        return mat.cols() != (int) oriSize.width || mat.rows() != (int) oriSize.height;
+    }
+
+    /**
+     * @return mat 是否由加载器创建
+     */
+    public boolean isOwned() {
+        return owned;
+    }
+
+    /**
+     * 释放由加载器创建的 Mat
+     */
+    @Override
+    public void close() {
+        if (owned) {
+            mat.release();
+        }
+    }
+}
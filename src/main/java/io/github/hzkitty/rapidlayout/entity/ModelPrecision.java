@@ -0,0 +1,22 @@
+package io.github.hzkitty.rapidlayout.entity;
+
+/**
+ * 模型精度偏好，INT8 变体为 FP32 模型旁的 &lt;名称&gt;_int8.onnx（见 {@link io.github.hzkitty.rapidlayout.utils.ModelVariants}）
+ */
+public enum ModelPrecision {
+
+    /**
+     * 始终使用配置的 FP32 模型
+     */
+    FP32,
+
+    /**
+     * 使用 INT8 变体，模型类型不支持时回退到 FP32，变体文件不存在时抛出异常
+     */
+    INT8,
+
+    /**
+     * CPU 支持 AVX512-VNNI / AVX-VNNI / AMX 且 INT8 变体存在时使用 INT8，否则使用 FP32；使用 CUDA/DML 时始终为 FP32
+     */
+    AUTO,
+}
@@ -1,13 +1,20 @@
 package io.github.hzkitty.rapidlayout.entity;
 
+import ai.onnxruntime.OrtSession.SessionOptions.ExecutionMode;
+
 public class OrtInferConfig {
     public int intraOpNumThreads; // 单线程操作线程数
     public int interOpNumThreads; // 多线程操作线程数
+    public ExecutionMode executionMode = ExecutionMode.SEQUENTIAL; // 算子执行模式，PARALLEL 时无依赖的算子按 interOpNumThreads 并行
     public boolean useCuda; // 是否使用 CUDA
     public int deviceId;
     public boolean useDml; // 是否使用 DML
     public String modelPath; // 模型路径
     public boolean useArena;
+    public boolean reuseBuffers; // 是否复用线程私有的输出缓冲区
+    public int sessionPoolSize = 1; // 会话数，大于 1 时推理分派给并发数最少的会话
+    public long sessionIdleTimeoutMillis = 60000; // 会话池中除第一个外的会话空闲超过该时间后关闭，<= 0 时不关闭
+    public String optimizedModelCacheDir; // 图优化后模型 (ORT 格式) 的缓存目录，null 时不缓存
 
     public int getIntraOpNumThreads() {
         return intraOpNumThreads;
@@ -25,6 +32,14 @@ public class OrtInferConfig {
         this.interOpNumThreads = interOpNumThreads;
     }
 
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
     public boolean isUseCuda() {
         return useCuda;
     }
@@ -64,4 +79,56 @@ public class OrtInferConfig {
     public void setUseArena(boolean useArena) {
         this.useArena = useArena;
     }
+
+    public boolean isReuseBuffers() {
+        return reuseBuffers;
+    }
+
+    public void setReuseBuffers(boolean reuseBuffers) {
+        this.reuseBuffers = reuseBuffers;
+    }
+
+    public int getSessionPoolSize() {
+        return sessionPoolSize;
+    }
+
+    public void setSessionPoolSize(int sessionPoolSize) {
+        this.sessionPoolSize = sessionPoolSize;
+    }
+
+    public long getSessionIdleTimeoutMillis() {
+        return sessionIdleTimeoutMillis;
+    }
+
+    public void setSessionIdleTimeoutMillis(long sessionIdleTimeoutMillis) {
+        this.sessionIdleTimeoutMillis = sessionIdleTimeoutMillis;
+    }
+
+    public String getOptimizedModelCacheDir() {
+        return optimizedModelCacheDir;
+    }
+
+    public void setOptimizedModelCacheDir(String optimizedModelCacheDir) {
+        this.optimizedModelCacheDir = optimizedModelCacheDir;
+    }
+
+    /**
+     * 复制一份配置
+     */
+    public OrtInferConfig copy() {
+        OrtInferConfig copy = new OrtInferConfig();
+        copy.intraOpNumThreads = intraOpNumThreads;
+        copy.interOpNumThreads = interOpNumThreads;
+        copy.executionMode = executionMode;
+        copy.useCuda = useCuda;
+        copy.deviceId = deviceId;
+        copy.useDml = useDml;
+        copy.modelPath = modelPath;
+        copy.useArena = useArena;
+        copy.reuseBuffers = reuseBuffers;
+        copy.sessionPoolSize = sessionPoolSize;
+        copy.sessionIdleTimeoutMillis = sessionIdleTimeoutMillis;
+        copy.optimizedModelCacheDir = optimizedModelCacheDir;
+        return copy;
+    }
 }
@@ -0,0 +1,18 @@
+package io.github.hzkitty.rapidlayout.entity;
+
+/**
+ * 前处理实现
+ */
+public enum PreProcessBackend {
+
+    /**
+     * OpenCV resize 后在 Java 中查表归一化并 permute（可用时走 Vector API），输出与 OpenCV 逐元素计算逐位一致
+     */
+    JAVA,
+
+    /**
+     * OpenCV dnn 模块的 blobFromImage：resize、缩放、减均值、swapRB、NCHW 排列在一次 native 调用中完成，
+     * 结果以 native 拷贝写入 direct buffer 交给 ONNX Runtime，不经过 Java 数组；与 JAVA 相比存在 1e-6 量级的浮点误差
+     */
+    OPENCV_DNN,
+}
@@ -0,0 +1,149 @@
+package io.github.hzkitty.rapidlayout.entity;
+
+import java.util.List;
+
+/**
+ * ONNX Runtime 性能分析的汇总：按算子类型与按节点统计内核耗时，均按总耗时降序排列
+ * 占比为该项内核耗时占推理总耗时 (model_run) 的比例，各项之和小于 1 的部分为调度、内存拷贝等开销
+ */
+public class ProfileReport {
+    private final int runs;
+    private final long inferenceMicros;
+    private final List<Entry> operators;
+    private final List<Entry> nodes;
+
+    public ProfileReport(int runs, long inferenceMicros, List<Entry> operators, List<Entry> nodes) {
+        this.runs = runs;
+        this.inferenceMicros = inferenceMicros;
+        this.operators = operators;
+        this.nodes = nodes;
+    }
+
+    /**
+     * 计入统计的推理次数
+     */
+    public int getRuns() {
+        return runs;
+    }
+
+    /**
+     * 各次推理的总耗时（微秒）
+     */
+    public long getInferenceMicros() {
+        return inferenceMicros;
+    }
+
+    /**
+     * 按算子类型（Conv、Resize、TopK 等）汇总，name 与 opType 相同，不含形状
+     */
+    public List<Entry> getOperators() {
+        return operators;
+    }
+
+    /**
+     * 按图中节点汇总，含输入输出形状
+     */
+    public List<Entry> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 可读的报告：算子类型全部列出，节点列出耗时最多的 top 个
+     */
+    public String format(int top) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d runs, %.2f ms/run%n", runs, inferenceMicros / 1000.0 / Math.max(1, runs)));
+        sb.append(String.format("%n%-24s %12s %8s %8s%n", "operator", "ms/run", "share", "calls"));
+        for (Entry entry : operators) {
+            sb.append(String.format("%-24s %12.3f %7.1f%% %8d%n",
+                    entry.opType, entry.totalMicros / 1000.0 / Math.max(1, runs), entry.share * 100, entry.calls));
+        }
+        sb.append(String.format("%n%-48s %-16s %12s %8s  %s%n", "node", "operator", "ms/run", "share", "input -> output"));
+        for (Entry entry : nodes.subList(0, Math.min(top, nodes.size()))) {
+            sb.append(String.format("%-48s %-16s %12.3f %7.1f%%  %s -> %s%n",
+                    entry.name, entry.opType, entry.totalMicros / 1000.0 / Math.max(1, runs), entry.share * 100,
+                    entry.inputShapes, entry.outputShapes));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return format(20);
+    }
+
+    /**
+     * 一个算子类型或节点的统计
+     */
+    public static class Entry {
+        private final String name;
+        private final String opType;
+        private final String provider;
+        private final long totalMicros;
+        private final int calls;
+        private final double share;
+        private final List<String> inputShapes;
+        private final List<String> outputShapes;
+
+        public Entry(String name, String opType, String provider, long totalMicros, int calls, double share,
+                     List<String> inputShapes, List<String> outputShapes) {
+            this.name = name;
+            this.opType = opType;
+            this.provider = provider;
+            this.totalMicros = totalMicros;
+            this.calls = calls;
+            this.share = share;
+            this.inputShapes = inputShapes;
+            this.outputShapes = outputShapes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getOpType() {
+            return opType;
+        }
+
+        /**
+         * 执行设备，如 CPUExecutionProvider
+         */
+        public String getProvider() {
+            return provider;
+        }
+
+        /**
+         * 所有计入的推理中的内核总耗时（微秒）
+         */
+        public long getTotalMicros() {
+            return totalMicros;
+        }
+
+        public int getCalls() {
+            return calls;
+        }
+
+        /**
+         * 占推理总耗时的比例 (0~1)
+         */
+        public double getShare() {
+            return share;
+        }
+
+        /**
+         * 输入形状，如 float[1,3,1024,1024]
+         */
+        public List<String> getInputShapes() {
+            return inputShapes;
+        }
+
+        public List<String> getOutputShapes() {
+            return outputShapes;
+        }
+
+        @Override
+        public String toString() {
+            return name + "(" + opType + ") " + totalMicros + "us " + String.format("%.1f%%", share * 100);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package io.github.hzkitty.rapidlayout.entity;
+
+import org.opencv.core.Size;
+
+/**
+ * 前处理的缩放信息：原图 -> 缩放 (+ 填充) -> 模型输入
+ * 后处理据此把模型输入坐标系下的检测框还原到原图坐标
+ */
+public class ResizeInfo {
+    private final int oriWidth;
+    private final int oriHeight;
+    // 模型输入尺寸（含填充）
+    private final int inputWidth;
+    private final int inputHeight;
+    // 缩放后的图像尺寸（不含填充）
+    private final int resizedWidth;
+    private final int resizedHeight;
+    // 左侧、上方的填充像素
+    private final int padLeft;
+    private final int padTop;
+    // 原图 -> 缩放后图像的实际比例（letterbox 时因取整，x/y 方向可能略有差异）
+    private final float scaleX;
+    private final float scaleY;
+
+    private ResizeInfo(int oriWidth, int oriHeight, int inputWidth, int inputHeight, int resizedWidth, int resizedHeight,
+                       int padLeft, int padTop, float scaleX, float scaleY) {
+        this.oriWidth = oriWidth;
+        this.oriHeight = oriHeight;
+        this.inputWidth = inputWidth;
+        this.inputHeight = inputHeight;
+        this.resizedWidth = resizedWidth;
+        this.resizedHeight = resizedHeight;
+        this.padLeft = padLeft;
+        this.padTop = padTop;
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+    }
+
+    /**
+     * 直接拉伸到固定的模型输入尺寸
+     */
+    public static ResizeInfo stretch(Size oriSize, int inputWidth, int inputHeight) {
+        int oriWidth = (int) oriSize.width;
+        int oriHeight = (int) oriSize.height;
+        return new ResizeInfo(oriWidth, oriHeight, inputWidth, inputHeight, inputWidth, inputHeight, 0, 0,
+                (float) inputWidth / oriWidth, (float) inputHeight / oriHeight);
+    }
+
+    /**
+     * 保持宽高比缩放到 targetWidth x targetHeight 以内，短边只填充到 stride 的整数倍（左右/上下居中填充）
+     * 与 ultralytics LetterBox(auto=True) 的计算方式一致
+     */
+    public static ResizeInfo letterbox(Size oriSize, int targetWidth, int targetHeight, int stride) {
+        int oriWidth = (int) oriSize.width;
+        int oriHeight = (int) oriSize.height;
+        float ratio = Math.min((float) targetWidth / oriWidth, (float) targetHeight / oriHeight);
+        int resizedWidth = Math.max(1, Math.round(oriWidth * ratio));
+        int resizedHeight = Math.max(1, Math.round(oriHeight * ratio));
+        int padWidth = Math.floorMod(targetWidth - resizedWidth, stride);
+        int padHeight = Math.floorMod(targetHeight - resizedHeight, stride);
+        return new ResizeInfo(oriWidth, oriHeight, resizedWidth + padWidth, resizedHeight + padHeight,
+                resizedWidth, resizedHeight, padWidth / 2, padHeight / 2,
+                (float) resizedWidth / oriWidth, (float) resizedHeight / oriHeight);
+    }
+
+    /**
+     * 模型输入张量形状 [1, 3, H, W]
+     */
+    public long[] getInputShape() {
+        return new long[]{1, 3, inputHeight, inputWidth};
+    }
+
+    public Size getOriSize() {
+        return new Size(oriWidth, oriHeight);
+    }
+
+    public boolean isPadded() {
+        return inputWidth != resizedWidth || inputHeight != resizedHeight;
+    }
+
+    /**
+     * 模型输入坐标 -> 原图坐标 (x 方向)
+     */
+    public float toOriginX(float x) {
+        return (x - padLeft) * ((float) oriWidth / resizedWidth);
+    }
+
+    /**
+     * 模型输入坐标 -> 原图坐标 (y 方向)
+     */
+    public float toOriginY(float y) {
+        return (y - padTop) * ((float) oriHeight / resizedHeight);
+    }
+
+    /**
+     * 模型输入尺度下的宽度 -> 原图宽度
+     */
+    public float toOriginWidth(float w) {
+        return w * ((float) oriWidth / resizedWidth);
+    }
+
+    /**
+     * 模型输入尺度下的高度 -> 原图高度
+     */
+    public float toOriginHeight(float h) {
+        return h * ((float) oriHeight / resizedHeight);
+    }
+
+    public int getOriWidth() {
+        return oriWidth;
+    }
+
+    public int getOriHeight() {
+        return oriHeight;
+    }
+
+    public int getInputWidth() {
+        return inputWidth;
+    }
+
+    public int getInputHeight() {
+        return inputHeight;
+    }
+
+    public int getResizedWidth() {
+        return resizedWidth;
+    }
+
+    public int getResizedHeight() {
+        return resizedHeight;
+    }
+
+    public int getPadLeft() {
+        return padLeft;
+    }
+
+    public int getPadTop() {
+        return padTop;
+    }
+
+    public float getScaleX() {
+        return scaleX;
+    }
+
+    public float getScaleY() {
+        return scaleY;
+    }
+
+    @Override
+    public String toString() {
+        return "ResizeInfo{" +
+                "ori=" + oriWidth + "x" + oriHeight +
+                ", input=" + inputWidth + "x" + inputHeight +
+                ", resized=" + resizedWidth + "x" + resizedHeight +
+                ", pad=(" + padLeft + ", " + padTop + ")" +
+                '}';
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.hzkitty.rapidlayout.entity;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * 连续存储的 float 张量：数据按行优先 (C 顺序) 排列在 buffer 的 [0, size) 中，按形状计算下标访问，不复制为多维数组
+ */
+public class TensorView {
+    private final FloatBuffer buffer;
+    private final long[] shape;
+
+    public TensorView(FloatBuffer buffer, long[] shape) {
+        this.buffer = buffer;
+        this.shape = shape;
+    }
+
+    /**
+     * 数据，按绝对下标读取，不依赖 position
+     */
+    public FloatBuffer getBuffer() {
+        return buffer;
+    }
+
+    public long[] getShape() {
+        return shape;
+    }
+
+    @Override
+    public String toString() {
+        return "TensorView" + Arrays.toString(shape);
+    }
+}
@@ -0,0 +1,17 @@
+package io.github.hzkitty.rapidlayout.entity;
+
+/**
+ * 自动调优的目标
+ */
+public enum TuneGoal {
+
+    /**
+     * 单张图片延迟最低：单个会话，比较不同的算子内/算子间线程数与执行模式
+     */
+    LATENCY,
+
+    /**
+     * 吞吐最高：按核数划分为多个会话并发推理，比较每个会话的线程数与会话数的组合
+     */
+    THROUGHPUT,
+}
@@ -0,0 +1,38 @@
+package io.github.hzkitty.rapidlayout.entity;
+
+/**
+ * 某个批次大小下每次预热推理的耗时（毫秒），按执行顺序排列，可据此观察耗时何时趋于稳定
+ */
+public class WarmupTiming {
+    private final int batchSize;
+    private final double[] elapseMillis;
+
+    public WarmupTiming(int batchSize, double[] elapseMillis) {
+        this.batchSize = batchSize;
+        this.elapseMillis = elapseMillis;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public double[] getElapseMillis() {
+        return elapseMillis.clone();
+    }
+
+    /**
+     * 最后一次预热的耗时，近似稳态耗时
+     */
+    public double getLastMillis() {
+        return elapseMillis.length == 0 ? 0 : elapseMillis[elapseMillis.length - 1];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("WarmupTiming{batchSize=").append(batchSize).append(", elapseMillis=[");
+        for (int i = 0; i < elapseMillis.length; i++) {
+            sb.append(i == 0 ? "" : ", ").append(String.format("%.1f", elapseMillis[i]));
+        }
+        return sb.append("]}").toString();
+    }
+}
@@ -0,0 +1,368 @@
+package io.github.hzkitty.rapidlayout.utils;
+
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession.SessionOptions.ExecutionMode;
+import io.github.hzkitty.rapidlayout.entity.OrtInferConfig;
+import io.github.hzkitty.rapidlayout.entity.TuneGoal;
+import io.github.hzkitty.rapidlayout.utils.pre.PreUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 启动时的线程与会话拓扑自动调优：以模型实际输入尺寸的合成输入，逐个尝试算子内线程数、算子间线程数、
+ * 执行模式与会话数的组合，按 {@link TuneGoal} 选出最优配置。
+ * <p>
+ * 结果按 (模型 SHA-256, CPU 型号, 核数, 目标, 执行设备, 输入形状) 保存为缓存目录下的 properties 文件，之后启动直接读取，不再重复测量。
+ * 也可作为命令行工具单独运行：
+ * <pre>
+ * java -cp ... io.github.hzkitty.rapidlayout.utils.AutoTuner &lt;模型路径&gt; [latency|throughput] [输入边长] [缓存目录]
+ * </pre>
+ */
+public class AutoTuner {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutoTuner.class);
+
+    // 默认缓存目录
+    public static final Path DEFAULT_CACHE_DIR = Paths.get(System.getProperty("user.home"), ".rapidlayout", "tune");
+
+    private static final int WARMUP_RUNS = 2;
+    private static final int LATENCY_RUNS = 5;
+    // 吞吐测量时每个会话执行的推理次数
+    private static final int THROUGHPUT_RUNS_PER_SESSION = 3;
+    // 模型哈希：classpath 模型以路径为键，文件以 路径|大小|修改时间 为键，同一进程内每个模型只读取一次
+    private static final Map<String, String> MODEL_HASHES = new ConcurrentHashMap<>();
+
+    /**
+     * 调优得到的配置
+     */
+    public static class Result {
+        public final int intraOpNumThreads;
+        public final int interOpNumThreads;
+        public final ExecutionMode executionMode;
+        public final int sessionPoolSize;
+        // 延迟目标为单次推理毫秒数，吞吐目标为每秒推理次数
+        public final double score;
+
+        public Result(int intraOpNumThreads, int interOpNumThreads, ExecutionMode executionMode, int sessionPoolSize, double score) {
+            this.intraOpNumThreads = intraOpNumThreads;
+            this.interOpNumThreads = interOpNumThreads;
+            this.executionMode = executionMode;
+            this.sessionPoolSize = sessionPoolSize;
+            this.score = score;
+        }
+
+        /**
+         * 写入 config 的线程数、执行模式与会话数
+         */
+        public void applyTo(OrtInferConfig config) {
+            config.setIntraOpNumThreads(intraOpNumThreads);
+            config.setInterOpNumThreads(interOpNumThreads);
+            config.setExecutionMode(executionMode);
+            config.setSessionPoolSize(sessionPoolSize);
+        }
+
+        @Override
+        public String toString() {
+            return "intraOpNumThreads=" + intraOpNumThreads +
+                    ", interOpNumThreads=" + interOpNumThreads +
+                    ", executionMode=" + executionMode +
+                    ", sessionPoolSize=" + sessionPoolSize +
+                    ", score=" + String.format("%.2f", score);
+        }
+    }
+
+    /**
+     * 读取缓存的调优结果，不存在时测量并写入缓存
+     *
+     * @param base       基础配置（模型路径、设备等），不会被修改
+     * @param goal       调优目标
+     * @param inputShape 合成输入的形状 [1, 3, H, W]
+     * @param cacheDir   缓存目录，为 null 时不读写缓存
+     * @return 最优配置
+     */
+    public static Result tune(OrtInferConfig base, TuneGoal goal, long[] inputShape, Path cacheDir) throws IOException {
+        Path cacheFile = cacheDir == null ? null : cacheDir.resolve(cacheKey(base, goal, inputShape) + ".properties");
+        if (cacheFile != null && Files.isRegularFile(cacheFile)) {
+            Result cached = load(cacheFile);
+            if (cached != null) {
+                logger.info("Loaded tuned config from {}: {}", cacheFile, cached);
+                return cached;
+            }
+        }
+        Result best = sweep(base, goal, inputShape);
+        if (cacheFile != null) {
+            save(cacheFile, best);
+        }
+        return best;
+    }
+
+    /**
+     * 逐个测量候选配置，返回最优者
+     */
+    public static Result sweep(OrtInferConfig base, TuneGoal goal, long[] inputShape) {
+        FloatBuffer input = PreUtils.allocateTensor(inputShape);
+        for (int i = 0; i < input.capacity(); i++) {
+            input.put(i, (i % 255) / 255f);
+        }
+        Result best = null;
+        for (Result candidate : candidates(goal, Runtime.getRuntime().availableProcessors())) {
+            OrtInferConfig config = base.copy();
+            candidate.applyTo(config);
+            // 测量期间不回收会话
+            config.setSessionIdleTimeoutMillis(0);
+            config.setReuseBuffers(false);
+            double score;
+            try (OrtInferSession session = new OrtInferSession(config)) {
+                score = goal == TuneGoal.LATENCY
+                        ? measureLatency(session, input, inputShape)
+                        : measureThroughput(session, input, inputShape, candidate.sessionPoolSize);
+            } catch (Exception e) {
+                logger.warn("Tuning candidate {} failed", candidate, e);
+                continue;
+            }
+            Result measured = new Result(candidate.intraOpNumThreads, candidate.interOpNumThreads,
+                    candidate.executionMode, candidate.sessionPoolSize, score);
+            logger.info("Tuning {}: {}", goal, measured);
+            if (best == null || (goal == TuneGoal.LATENCY ? score < best.score : score > best.score)) {
+                best = measured;
+            }
+        }
+        if (best == null) {
+            throw new IllegalStateException("所有候选配置均无法运行");
+        }
+        logger.info("Tuned {} config: {}", goal, best);
+        return best;
+    }
+
+    /**
+     * 候选配置：算子内线程数取 2 的幂与核数；LATENCY 为单会话的顺序/并行执行模式，
+     * THROUGHPUT 按 核数 / 算子内线程数 划分会话
+     */
+    static List<Result> candidates(TuneGoal goal, int cores) {
+        TreeSet<Integer> intraThreads = new TreeSet<>();
+        for (int n = 1; n <= cores; n *= 2) {
+            intraThreads.add(n);
+        }
+        intraThreads.add(cores);
+        List<Result> candidates = new ArrayList<>();
+        for (int intra : intraThreads) {
+            if (goal == TuneGoal.LATENCY) {
+                candidates.add(new Result(intra, 1, ExecutionMode.SEQUENTIAL, 1, 0));
+                if (intra > 1) {
+                    candidates.add(new Result(intra, 2, ExecutionMode.PARALLEL, 1, 0));
+                }
+            } else {
+                candidates.add(new Result(intra, 1, ExecutionMode.SEQUENTIAL, Math.max(1, cores / intra), 0));
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * 单线程连续推理，返回中位数耗时（毫秒）
+     */
+    private static double measureLatency(OrtInferSession session, FloatBuffer input, long[] shape) throws OrtException {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            session.run(input.duplicate(), shape);
+        }
+        double[] millis = new double[LATENCY_RUNS];
+        for (int i = 0; i < LATENCY_RUNS; i++) {
+            long start = System.nanoTime();
+            session.run(input.duplicate(), shape);
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        return millis[LATENCY_RUNS / 2];
+    }
+
+    /**
+     * 与会话数相同的线程并发推理，返回每秒推理次数
+     */
+    private static double measureThroughput(OrtInferSession session, FloatBuffer input, long[] shape, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            // 预热时每个会话都会被创建
+            runConcurrently(executor, session, input, shape, threads, WARMUP_RUNS);
+            long start = System.nanoTime();
+            runConcurrently(executor, session, input, shape, threads, THROUGHPUT_RUNS_PER_SESSION);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return threads * THROUGHPUT_RUNS_PER_SESSION / seconds;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void runConcurrently(ExecutorService executor, OrtInferSession session, FloatBuffer input,
+                                        long[] shape, int threads, int runs) throws Exception {
+        List<Future<?>> futures = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < runs; i++) {
+                    session.run(input.duplicate(), shape);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    /**
+     * 缓存键：模型 SHA-256 前 16 位、CPU 型号与核数的哈希、目标、执行设备与输入形状
+     * （动态尺寸模型在不同输入边长下、CPU 与 GPU 上的最优配置都不同）
+     */
+    static String cacheKey(OrtInferConfig config, TuneGoal goal, long[] inputShape) throws IOException {
+        StringBuilder shape = new StringBuilder();
+        for (long dim : inputShape) {
+            shape.append(shape.length() == 0 ? "" : "x").append(dim);
+        }
+        return modelHash(config.getModelPath()).substring(0, 16) + "-" + cpuHash() + "-" + goal.name().toLowerCase()
+                + "-" + OrtInferSession.providerName(config) + "-" + shape;
+    }
+
+    /**
+     * CPU 型号与核数的哈希（8 位）
+     */
+    static String cpuHash() {
+        String cpu = CpuFeatures.modelName() + "/" + Runtime.getRuntime().availableProcessors();
+        return hex(digest(cpu.getBytes(StandardCharsets.UTF_8))).substring(0, 8);
+    }
+
+    /**
+     * 模型文件的 SHA-256，通过 OrtInferSession 的模型路径规则读取
+     * 结果在进程内缓存，调优与优化模型缓存共用，多次创建会话不会重复读取模型
+     */
+    static String modelHash(String modelPath) throws IOException {
+        String key = OrtInferSession.isClasspathModel(modelPath)
+                ? modelPath
+                : modelPath + "|" + OrtInferSession.modelSize(modelPath) + "|" + OrtInferSession.modelLastModified(modelPath);
+        String hash = MODEL_HASHES.get(key);
+        if (hash == null) {
+            hash = computeModelHash(modelPath);
+            MODEL_HASHES.put(key, hash);
+        }
+        return hash;
+    }
+
+    private static String computeModelHash(String modelPath) throws IOException {
+        MessageDigest sha = sha256();
+        try (DigestInputStream digestIn = new DigestInputStream(OrtInferSession.openModel(modelPath), sha)) {
+            byte[] buffer = new byte[1 << 16];
+            while (digestIn.read(buffer) != -1) {
+                // 读取过程中计算摘要
+            }
+        }
+        return hex(sha.digest());
+    }
+
+    private static Result load(Path file) {
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            props.load(in);
+            return new Result(
+                    Integer.parseInt(props.getProperty("intraOpNumThreads")),
+                    Integer.parseInt(props.getProperty("interOpNumThreads")),
+                    ExecutionMode.valueOf(props.getProperty("executionMode")),
+                    Integer.parseInt(props.getProperty("sessionPoolSize")),
+                    Double.parseDouble(props.getProperty("score")));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring invalid tune cache {}", file, e);
+            return null;
+        }
+    }
+
+    private static void save(Path file, Result result) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("intraOpNumThreads", String.valueOf(result.intraOpNumThreads));
+        props.setProperty("interOpNumThreads", String.valueOf(result.interOpNumThreads));
+        props.setProperty("executionMode", result.executionMode.name());
+        props.setProperty("sessionPoolSize", String.valueOf(result.sessionPoolSize));
+        props.setProperty("score", String.valueOf(result.score));
+        props.setProperty("cpu", CpuFeatures.modelName());
+        Files.createDirectories(file.getParent());
+        try (OutputStream out = Files.newOutputStream(file)) {
+            props.store(out, "rapid-layout4j tuned session config");
+        }
+        logger.info("Saved tuned config to {}", file);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] digest(byte[] data) {
+        return sha256().digest(data);
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 命令行：AutoTuner &lt;模型路径&gt; [latency|throughput] [输入边长] [缓存目录]
+     * 输入边长只在模型 H/W 为动态维度时使用，默认 1024
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("用法: AutoTuner <模型路径> [latency|throughput] [输入边长] [缓存目录]");
+            System.exit(1);
+        }
+        OrtInferConfig config = new OrtInferConfig();
+        config.setModelPath(args[0]);
+        TuneGoal goal = args.length > 1 ? TuneGoal.valueOf(args[1].toUpperCase()) : TuneGoal.LATENCY;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+        Path cacheDir = args.length > 3 ? Paths.get(args[3]) : DEFAULT_CACHE_DIR;
+
+        long[] shape;
+        try (OrtInferSession probe = new OrtInferSession(config)) {
+            shape = inputShape(probe.getInputShape(), size, size);
+        }
+        System.out.println(tune(config, goal, shape, cacheDir));
+    }
+
+    /**
+     * 把模型声明的输入形状中的动态维度替换为 batch 1 与给定宽高
+     */
+    public static long[] inputShape(long[] modelShape, int width, int height) {
+        long[] shape = {1, 3, height, width};
+        if (modelShape.length == 4) {
+            for (int i = 1; i < 4; i++) {
+                if (modelShape[i] > 0) {
+                    shape[i] = modelShape[i];
+                }
+            }
+        }
+        return shape;
+    }
+}
@@ -0,0 +1,176 @@
+package io.github.hzkitty.rapidlayout.utils;
+
+import io.github.hzkitty.rapidlayout.utils.pre.PreUtils;
+import org.opencv.core.Mat;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 线程私有的可复用缓冲区池，按 (名称, 尺寸) 缓存前处理、模型输出拷贝和后处理使用的临时数组
+ * 预热后同尺寸的请求不再产生新的分配。通过 {@link #get()} 获取当前线程的实例，实例本身不是线程安全的。
+ * <p>
+ * 返回的缓冲区在同一线程下一次以相同名称获取时会被覆盖，调用方不应跨调用持有。
+ */
+public class BufferPool {
+
+    // 每个名称最多缓存的不同尺寸数量，超出后淘汰最早的
+    private static final int MAX_SIZES_PER_KEY = 4;
+
+    private static final ThreadLocal<BufferPool> LOCAL = ThreadLocal.withInitial(BufferPool::new);
+
+    private final Map<String, List<Object>> buffers = new HashMap<>();
+    private final Map<String, Mat> mats = new HashMap<>();
+
+    /**
+     * 获取当前线程的缓冲区池
+     */
+    public static BufferPool get() {
+        return LOCAL.get();
+    }
+
+    public byte[] bytes(String key, int size) {
+        List<Object> slots = slots(key);
+        for (int i = 0; i < slots.size(); i++) {
+            Object o = slots.get(i);
+            if (o instanceof byte[] && ((byte[]) o).length == size) {
+                return (byte[]) o;
+            }
+        }
+        byte[] created = new byte[size];
+        add(slots, created);
+        return created;
+    }
+
+    public float[] floats(String key, int size) {
+        List<Object> slots = slots(key);
+        for (int i = 0; i < slots.size(); i++) {
+            Object o = slots.get(i);
+            if (o instanceof float[] && ((float[]) o).length == size) {
+                return (float[]) o;
+            }
+        }
+        float[] created = new float[size];
+        add(slots, created);
+        return created;
+    }
+
+    public float[][] floats(String key, int rows, int cols) {
+        List<Object> slots = slots(key);
+        for (int i = 0; i < slots.size(); i++) {
+            Object o = slots.get(i);
+            if (o instanceof float[][]) {
+                float[][] arr = (float[][]) o;
+                if (arr.length == rows && (rows == 0 || arr[0].length == cols)) {
+                    return arr;
+                }
+            }
+        }
+        float[][] created = new float[rows][cols];
+        add(slots, created);
+        return created;
+    }
+
+    public float[][][] floats(String key, int d0, int d1, int d2) {
+        List<Object> slots = slots(key);
+        for (int i = 0; i < slots.size(); i++) {
+            Object o = slots.get(i);
+            if (o instanceof float[][][]) {
+                float[][][] arr = (float[][][]) o;
+                if (arr.length == d0 && (d0 == 0 || arr[0].length == d1 && (d1 == 0 || arr[0][0].length == d2))) {
+                    return arr;
+                }
+            }
+        }
+        float[][][] created = new float[d0][d1][d2];
+        add(slots, created);
+        return created;
+    }
+
+    /**
+     * 获取 direct FloatBuffer（native 字节序），返回前已 clear()
+     */
+    public FloatBuffer floatBuffer(String key, long[] shape) {
+        long size = 1;
+        for (long dim : shape) {
+            size *= dim;
+        }
+        List<Object> slots = slots(key);
+        for (int i = 0; i < slots.size(); i++) {
+            Object o = slots.get(i);
+            if (o instanceof FloatBuffer && ((FloatBuffer) o).capacity() == size) {
+                FloatBuffer buffer = (FloatBuffer) o;
+                buffer.clear();
+                return buffer;
+            }
+        }
+        FloatBuffer created = PreUtils.allocateTensor(shape);
+        add(slots, created);
+        return created;
+    }
+
+    /**
+     * 按 float 张量形状获取 direct ByteBuffer（native 字节序），可直接包装为 Mat 供 OpenCV 写入，返回前已 clear()
+     */
+    public ByteBuffer tensorBytes(String key, long[] shape) {
+        long size = 1;
+        for (long dim : shape) {
+            size *= dim;
+        }
+        List<Object> slots = slots(key);
+        for (int i = 0; i < slots.size(); i++) {
+            Object o = slots.get(i);
+            if (o instanceof ByteBuffer && ((ByteBuffer) o).capacity() == size * Float.BYTES) {
+                ByteBuffer buffer = (ByteBuffer) o;
+                buffer.clear();
+                return buffer;
+            }
+        }
+        ByteBuffer created = PreUtils.allocateTensorBytes(shape);
+        add(slots, created);
+        return created;
+    }
+
+    /**
+     * 获取可复用的 Mat，作为 OpenCV 输出参数时尺寸和类型不变则不会重新分配 native 内存
+     */
+    public Mat mat(String key) {
+        Mat mat = mats.get(key);
+        if (mat == null) {
+            mat = new Mat();
+            mats.put(key, mat);
+        }
+        return mat;
+    }
+
+    /**
+     * 释放当前池中的全部缓冲区
+     */
+    public void clear() {
+        for (Mat mat : mats.values()) {
+            mat.release();
+        }
+        mats.clear();
+        buffers.clear();
+    }
+
+    private List<Object> slots(String key) {
+        List<Object> slots = buffers.get(key);
+        if (slots == null) {
+            slots = new ArrayList<>(MAX_SIZES_PER_KEY);
+            buffers.put(key, slots);
+        }
+        return slots;
+    }
+
+    private void add(List<Object> slots, Object buffer) {
+        if (slots.size() >= MAX_SIZES_PER_KEY) {
+            slots.remove(0);
+        }
+        slots.add(buffer);
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.hzkitty.rapidlayout.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * CPU 型号与指令集特性，Linux 读取一次 /proc/cpuinfo 的 model name 与 flags，其他系统视为都不支持
+ */
+public class CpuFeatures {
+
+    private static final Logger logger = LoggerFactory.getLogger(CpuFeatures.class);
+
+    private static final String MODEL_NAME;
+    private static final Set<String> FLAGS;
+
+    static {
+        String modelName = null;
+        Set<String> flags = Collections.emptySet();
+        Path cpuinfo = Paths.get("/proc/cpuinfo");
+        if (Files.isReadable(cpuinfo)) {
+            try {
+                for (String line : Files.readAllLines(cpuinfo)) {
+                    if (modelName == null && line.startsWith("model name")) {
+                        modelName = line.substring(line.indexOf(':') + 1).trim();
+                    } else if (flags.isEmpty() && line.startsWith("flags")) {
+                        String value = line.substring(line.indexOf(':') + 1).trim();
+                        flags = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(value.split("\\s+"))));
+                    }
+                    if (modelName != null && !flags.isEmpty()) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                logger.debug("Failed to read /proc/cpuinfo", e);
+            }
+        }
+        MODEL_NAME = modelName != null ? modelName : System.getProperty("os.arch");
+        FLAGS = flags;
+    }
+
+    /**
+     * CPU 型号，读不到 /proc/cpuinfo 时为 os.arch
+     */
+    public static String modelName() {
+        return MODEL_NAME;
+    }
+
+    /**
+     * 是否支持 INT8 点积指令（AVX512-VNNI、AVX-VNNI 或 AMX-INT8），ONNX Runtime 的 INT8 卷积/矩阵乘法在这些指令上明显快于 FP32
+     */
+    public static boolean hasInt8DotProduct() {
+        return FLAGS.contains("avx512_vnni") || FLAGS.contains("avx_vnni") || FLAGS.contains("amx_int8");
+    }
+
+    public static boolean hasAvx2() {
+        return FLAGS.contains("avx2");
+    }
+
+    /**
+     * 检测到的全部特性
+     */
+    public static Set<String> flags() {
+        return FLAGS;
+    }
+}
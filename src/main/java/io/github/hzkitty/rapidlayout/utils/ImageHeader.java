@@ -0,0 +1,215 @@
+package io.github.hzkitty.rapidlayout.utils;
+
+import org.opencv.core.Size;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 只解析文件头获取 PNG / JPEG / TIFF 图像的宽高，无需完整解码
+ * 无法识别的格式或损坏的文件头返回 null，由调用方回退到完整解码
+ */
+public class ImageHeader {
+
+    // 文件头首次读取的字节数，JPEG 的 SOF 段可能位于较大的 EXIF 之后，不够时按倍数继续读取
+    private static final int INITIAL_HEAD = 64 * 1024;
+    private static final int MAX_HEAD = 4 * 1024 * 1024;
+
+    private ImageHeader() {
+    }
+
+    /**
+     * @param data 编码后的图像数据
+     * @return 是否为 JPEG（OpenCV 只对 JPEG 在解码阶段直接缩小，其他格式的 IMREAD_REDUCED_* 是完整解码后再 resize）
+     */
+    public static boolean isJpeg(byte[] data) {
+        return data.length >= 3 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8 && (data[2] & 0xFF) == 0xFF;
+    }
+
+    /**
+     * @param data 编码后的图像数据，从 position 开始判断
+     * @return 是否为 JPEG
+     */
+    public static boolean isJpeg(ByteBuffer data) {
+        int pos = data.position();
+        return data.remaining() >= 3 && (data.get(pos) & 0xFF) == 0xFF && (data.get(pos + 1) & 0xFF) == 0xD8
+                && (data.get(pos + 2) & 0xFF) == 0xFF;
+    }
+
+    /**
+     * @param path 图像文件
+     * @return 是否为 JPEG
+     */
+    public static boolean isJpeg(Path path) throws IOException {
+        return isJpeg(readHead(path, (int) Math.min(Files.size(path), 3)));
+    }
+
+    /**
+     * @param data 编码后的图像数据
+     * @return 图像尺寸，无法识别时返回 null
+     */
+    public static Size probe(byte[] data) {
+        return probe(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * @param data 编码后的图像数据，从 position 开始解析，不修改 position
+     * @return 图像尺寸，无法识别时返回 null
+     */
+    public static Size probe(ByteBuffer data) {
+        try {
+            return parse(data.slice());
+        } catch (IndexOutOfBoundsException e) {
+            // 文件头被截断
+            return null;
+        }
+    }
+
+    /**
+     * 只读取文件开头部分解析尺寸
+     *
+     * @param path 图像文件
+     * @return 图像尺寸，无法识别时返回 null
+     */
+    public static Size probe(Path path) throws IOException {
+        long fileSize = Files.size(path);
+        int headSize = (int) Math.min(fileSize, INITIAL_HEAD);
+        while (true) {
+            byte[] head = readHead(path, headSize);
+            try {
+                return parse(ByteBuffer.wrap(head));
+            } catch (IndexOutOfBoundsException e) {
+                if (headSize >= fileSize || headSize >= MAX_HEAD) {
+                    return null;
+                }
+                headSize = (int) Math.min(Math.min(fileSize, MAX_HEAD), (long) headSize * 4);
+            }
+        }
+    }
+
+    private static byte[] readHead(Path path, int size) throws IOException {
+        byte[] head = new byte[size];
+        try (InputStream in = Files.newInputStream(path)) {
+            int read = 0;
+            while (read < size) {
+                int n = in.read(head, read, size - read);
+                if (n < 0) {
+                    break;
+                }
+                read += n;
+            }
+        }
+        return head;
+    }
+
+    private static Size parse(ByteBuffer buf) {
+        if (buf.remaining() < 8) {
+            return null;
+        }
+        int b0 = buf.get(0) & 0xFF;
+        int b1 = buf.get(1) & 0xFF;
+        if (b0 == 0x89 && b1 == 'P' && buf.get(2) == 'N' && buf.get(3) == 'G') {
+            return parsePng(buf);
+        }
+        if (b0 == 0xFF && b1 == 0xD8) {
+            return parseJpeg(buf);
+        }
+        if ((b0 == 'I' && b1 == 'I') || (b0 == 'M' && b1 == 'M')) {
+            return parseTiff(buf);
+        }
+        return null;
+    }
+
+    /**
+     * PNG：8 字节签名后的第一个块为 IHDR，宽高为大端 uint32
+     */
+    private static Size parsePng(ByteBuffer buf) {
+        buf.order(ByteOrder.BIG_ENDIAN);
+        if (buf.getInt(12) != 0x49484452) { // "IHDR"
+            return null;
+        }
+        return size(buf.getInt(16), buf.getInt(20));
+    }
+
+    /**
+     * JPEG：逐个跳过标记段，直到 SOFn 段，其中高、宽为大端 uint16
+     */
+    private static Size parseJpeg(ByteBuffer buf) {
+        buf.order(ByteOrder.BIG_ENDIAN);
+        int pos = 2;
+        while (true) {
+            if ((buf.get(pos) & 0xFF) != 0xFF) {
+                return null;
+            }
+            // 标记前允许有多个填充字节 0xFF
+            while ((buf.get(pos) & 0xFF) == 0xFF) {
+                pos++;
+            }
+            int marker = buf.get(pos++) & 0xFF;
+            if (marker == 0xD8 || marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                // 无长度字段的标记
+                continue;
+            }
+            if (marker == 0xD9 || marker == 0xDA) {
+                // EOI / SOS 之前没有出现 SOF
+                return null;
+            }
+            int length = buf.getShort(pos) & 0xFFFF;
+            if (isSof(marker)) {
+                int height = buf.getShort(pos + 3) & 0xFFFF;
+                int width = buf.getShort(pos + 5) & 0xFFFF;
+                return size(width, height);
+            }
+            pos += length;
+        }
+    }
+
+    private static boolean isSof(int marker) {
+        // C4 (DHT)、C8 (JPG)、CC (DAC) 不是 SOF
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    /**
+     * TIFF：读取第一个 IFD 中的 ImageWidth (256) 与 ImageLength (257)
+     */
+    private static Size parseTiff(ByteBuffer buf) {
+        buf.order(buf.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        if ((buf.getShort(2) & 0xFFFF) != 42) {
+            return null;
+        }
+        int ifd = buf.getInt(4);
+        int count = buf.getShort(ifd) & 0xFFFF;
+        int width = -1;
+        int height = -1;
+        for (int i = 0; i < count; i++) {
+            int entry = ifd + 2 + i * 12;
+            int tag = buf.getShort(entry) & 0xFFFF;
+            if (tag != 256 && tag != 257) {
+                continue;
+            }
+            int type = buf.getShort(entry + 2) & 0xFFFF;
+            int value;
+            if (type == 3) { // SHORT
+                value = buf.getShort(entry + 8) & 0xFFFF;
+            } else if (type == 4) { // LONG
+                value = buf.getInt(entry + 8);
+            } else {
+                return null;
+            }
+            if (tag == 256) {
+                width = value;
+            } else {
+                height = value;
+            }
+        }
+        return size(width, height);
+    }
+
+    private static Size size(int width, int height) {
+        return width > 0 && height > 0 ? new Size(width, height) : null;
+    }
+}
@@ -1,19 +1,33 @@
 package io.github.hzkitty.rapidlayout.utils;
 
+import io.github.hzkitty.rapidlayout.entity.ChannelOrder;
+import io.github.hzkitty.rapidlayout.entity.LoadedImage;
 import org.opencv.core.*;
 import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
 import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
 
 class LoadImageError extends Exception {
     public LoadImageError(String message) {
@@ -28,47 +42,267 @@ class LoadImageError extends Exception {
 
 public class LoadImage {
 
+    // BufferedImage 按行块转换时每块的目标字节数
+    private static final int BLOCK_BYTES = 1 << 20;
+    private static final ThreadLocal<ByteBuffer> INT_BLOCK = new ThreadLocal<>();
+
+    // 文件输入是否内存映射后交给 imdecode，而不是由 imread 自行读取
+    private final boolean mmapFiles;
+
+    public LoadImage() {
+        this(false);
+    }
+
+    /**
+     * @param mmapFiles 文件输入是否通过 FileChannel.map 内存映射后直接解码，不经过堆内 byte[]；
+     *                  非 ASCII 路径或 imread 读取失败时始终使用内存映射；映射在 GC 回收后才解除，见 decodeMapped
+     */
+    public LoadImage(boolean mmapFiles) {
+        this.mmapFiles = mmapFiles;
+    }
+
+    /**
+     * 加载图片并转换为 RGB 顺序的三通道 Mat（直接传入的三通道 Mat 不做转换）
+     */
     public Mat call(Object img) throws LoadImageError {
-        if (!(img instanceof String || img instanceof Path || img instanceof byte[]
+        LoadedImage loaded = load(img);
+        if (loaded.getChannelOrder() == ChannelOrder.RGB) {
+            return loaded.getMat();
+        }
+        Mat rgbMat = new Mat();
+        Imgproc.cvtColor(loaded.getMat(), rgbMat, Imgproc.COLOR_BGR2RGB);
+        loaded.close();
+        return rgbMat;
+    }
+
+    /**
+     * 加载图片为三通道 Mat 并记录其实际通道顺序，不做整图的通道交换，由前处理在归一化时一并完成
+     * 解码得到的图像为 BGR；直接传入的 Mat（及由其转换得到的三通道图像）与 {@link #call(Object)} 一致，不做交换并按 RGB 处理
+     * 返回值用完后应 close，释放加载过程中创建的 Mat；直接传入的三通道 Mat 由调用方管理
+     */
+    public LoadedImage load(Object img) throws LoadImageError {
+        if (!(img instanceof String || img instanceof Path || img instanceof byte[] || img instanceof ByteBuffer
                 || img instanceof Mat || img instanceof BufferedImage)) {
             throw new LoadImageError("输入类型不被支持: " + img.getClass().getName());
         }
         // 记录原始类型，用于后续逻辑判断
         Class<?> originImgType = img.getClass();
 
-        Mat mat = loadImg(img);
+        Mat mat = loadImg(img, Imgcodecs.IMREAD_COLOR);
+
+        return convertImg(mat, originImgType);
+    }
 
-        Mat converted = convertImg(mat, originImgType);
+    /**
+     * 按需缩小解码：先只解析文件头得到原图尺寸，再选取满足 minDecodeSize 的最大缩小倍数 (1/2、1/4、1/8)
+     * 以 IMREAD_REDUCED_COLOR_* 解码，JPEG 直接在 DCT 阶段缩小，省去大图的完整解码和后续大尺寸 resize
+     * 仅对 JPEG 的路径、字节数组和 ByteBuffer 生效（其他格式 OpenCV 仍完整解码，再额外 resize 反而更慢），
+     * 其他输入、无法解析文件头或无需缩小时与 {@link #load(Object)} 相同
+     *
+     * @param img            图片输入
+     * @param minDecodeSize  原图尺寸到解码后所需最小尺寸的映射（通常是前处理缩放后的尺寸）
+     * @return 三通道 Mat、通道顺序及原图尺寸
+     */
+    public LoadedImage load(Object img, Function<Size, Size> minDecodeSize) throws LoadImageError {
+        if (!(img instanceof String || img instanceof Path || img instanceof byte[] || img instanceof ByteBuffer)) {
+            return load(img);
+        }
+        Size oriSize = null;
+        try {
+            if (img instanceof byte[]) {
+                byte[] bytes = (byte[]) img;
+                oriSize = ImageHeader.isJpeg(bytes) ? ImageHeader.probe(bytes) : null;
+            } else if (img instanceof ByteBuffer) {
+                ByteBuffer buffer = (ByteBuffer) img;
+                oriSize = ImageHeader.isJpeg(buffer) ? ImageHeader.probe(buffer) : null;
+            } else {
+                Path path = toPath(img);
+                oriSize = ImageHeader.isJpeg(path) ? ImageHeader.probe(path) : null;
+            }
+        } catch (IOException e) {
+            oriSize = null;
+        }
+        if (oriSize == null) {
+            return load(img);
+        }
+        int factor = reduceFactor(oriSize, minDecodeSize);
+        if (factor == 1) {
+            return load(img);
+        }
+        Mat mat = loadImg(img, reducedFlag(factor));
+        Size decodedSize = mat.size();
+        LoadedImage loaded = convertImg(mat, img.getClass());
+        return new LoadedImage(loaded.getMat(), loaded.getChannelOrder(), decodedOriSize(decodedSize, oriSize, factor));
+    }
 
-        return converted;
+    /**
+     * 多页图像（如扫描仪输出的多页 TIFF）的页数，只解析文件结构，不解码像素；单页格式返回 1
+     * imcount 与 imreadmulti 由 OpenCV 直接打开文件，不支持非 ASCII（中文）路径
+     *
+     * @param path 图片路径
+     * @return 页数
+     * @throws LoadImageError 文件不存在或无法识别
+     */
+    public int pageCount(Path path) throws LoadImageError {
+        String filePath = path.toString();
+        verifyExist(filePath);
+        long count = Imgcodecs.imcount(filePath, Imgcodecs.IMREAD_COLOR);
+        if (count <= 0) {
+            throw new LoadImageError("无法识别或读取图片: " + filePath);
+        }
+        return (int) count;
+    }
+
+    /**
+     * 只解码多页图像的第 index 页（从 0 开始），其余页不解码，结果与 {@link #load(Object)} 加载单页文件一致
+     *
+     * @param path  图片路径
+     * @param index 页号
+     * @return 三通道 Mat 及其通道顺序，用完后应 close
+     * @throws LoadImageError 文件不存在、页号越界或解码失败
+     */
+    public LoadedImage loadPage(Path path, int index) throws LoadImageError {
+        String filePath = path.toString();
+        verifyExist(filePath);
+        List<Mat> pages = new ArrayList<>(1);
+        boolean ok = Imgcodecs.imreadmulti(filePath, pages, index, 1, Imgcodecs.IMREAD_COLOR);
+        if (!ok || pages.size() != 1 || pages.get(0).empty()) {
+            for (Mat page : pages) {
+                page.release();
+            }
+            throw new LoadImageError("无法读取第 " + index + " 页: " + filePath);
+        }
+        return convertImg(pages.get(0), Path.class);
+    }
+
+    /**
+     * 选取缩小后宽高仍不小于所需尺寸的最大倍数；EXIF 方向可能使解码结果宽高互换，因此旋转后的尺寸也需满足
+     */
+    static int reduceFactor(Size oriSize, Function<Size, Size> minDecodeSize) {
+        Size rotated = new Size(oriSize.height, oriSize.width);
+        Size required = minDecodeSize.apply(oriSize);
+        Size requiredRotated = minDecodeSize.apply(rotated);
+        for (int factor = 8; factor > 1; factor /= 2) {
+            if (fits(oriSize, required, factor) && fits(rotated, requiredRotated, factor)) {
+                return factor;
+            }
+        }
+        return 1;
+    }
+
+    private static boolean fits(Size oriSize, Size required, int factor) {
+        return (int) oriSize.width / factor >= Math.ceil(required.width)
+                && (int) oriSize.height / factor >= Math.ceil(required.height);
+    }
+
+    private static int reducedFlag(int factor) {
+        switch (factor) {
+            case 2:
+                return Imgcodecs.IMREAD_REDUCED_COLOR_2;
+            case 4:
+                return Imgcodecs.IMREAD_REDUCED_COLOR_4;
+            case 8:
+                return Imgcodecs.IMREAD_REDUCED_COLOR_8;
+            default:
+                return Imgcodecs.IMREAD_COLOR;
+        }
+    }
+
+    /**
+     * 由解码结果推断原图尺寸：与文件头尺寸缩小后一致时使用文件头尺寸，
+     * 宽高互换时说明解码按 EXIF 方向旋转过，其余情况按倍数放大解码尺寸
+     */
+    private static Size decodedOriSize(Size decoded, Size header, int factor) {
+        int w = (int) decoded.width;
+        int h = (int) decoded.height;
+        int hw = (int) header.width;
+        int hh = (int) header.height;
+        if (near(w, hw, factor) && near(h, hh, factor)) {
+            return header;
+        }
+        if (near(w, hh, factor) && near(h, hw, factor)) {
+            return new Size(hh, hw);
+        }
+        return new Size(w * factor, h * factor);
+    }
+
+    private static boolean near(int decoded, int ori, int factor) {
+        // JPEG 缩小尺寸向上取整
+        return Math.abs(decoded - ori / (double) factor) < 1;
+    }
+
+    private static Path toPath(Object img) {
+        return img instanceof Path ? (Path) img : Paths.get((String) img);
+    }
+
+    /**
+     * 内存映射文件并直接解码。Java 没有公开的解除映射接口，映射区域要等 MappedByteBuffer 被 GC 回收时才解除：
+     * 在此之前占用与文件等大的虚拟地址空间，Windows 上文件也保持锁定（无法删除或覆盖）。
+     * 连续处理数百 MB 的大文件时应留意，必要时改用 ByteBuffer 输入自行管理缓冲区
+     */
+    private static Mat decodeMapped(Path path, int flags) throws LoadImageError {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(mapped, flags);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new LoadImageError("无法识别或读取图片: " + path, e);
+        }
+    }
+
+    /**
+     * 解码 position 到 limit 之间的数据：直接缓冲区（包括内存映射）零拷贝包装为 Mat，堆缓冲区只复制一次到本地内存
+     */
+    private static Mat decode(ByteBuffer data, int flags) throws LoadImageError {
+        int length = data.remaining();
+        if (length == 0) {
+            throw new LoadImageError("图片数据为空");
+        }
+        Mat encoded;
+        if (data.isDirect()) {
+            // Mat 只引用缓冲区起始地址，先 slice 使其从 position 开始
+            encoded = new Mat(1, length, CvType.CV_8UC1, data.slice());
+        } else {
+            encoded = new Mat(1, length, CvType.CV_8UC1);
+            if (data.hasArray()) {
+                encoded.put(0, 0, data.array(), data.arrayOffset() + data.position(), length);
+            } else {
+                // 只读堆缓冲区无法访问底层数组
+                byte[] bytes = new byte[length];
+                data.duplicate().get(bytes);
+                encoded.put(0, 0, bytes);
+            }
+        }
+        try {
+            return Imgcodecs.imdecode(encoded, flags);
+        } finally {
+            encoded.release();
+        }
     }
 
     /**
      * 加载图片，转为 OpenCV 的 Mat 格式
      *
-     * @param img 输入可能是多种类型
+     * @param img   输入可能是多种类型
+     * @param flags 路径和字节数组的解码标志
      * @return Mat
      * @throws LoadImageError 加载失败抛出异常
      */
-    private Mat loadImg(Object img) throws LoadImageError {
+    private Mat loadImg(Object img, int flags) throws LoadImageError {
         // 1. 如果是字符串或 Path，认为是图片文件路径
         if (img instanceof String || img instanceof Path) {
             String filePath = img instanceof String ? (String) img : ((Path) img).toString();
             verifyExist(filePath);
-            boolean containsChinese = filePath.matches(".*[\\u4e00-\\u9fa5]+.*");
-            Mat mat;
-            if (!containsChinese) {
-                mat = Imgcodecs.imread(filePath, Imgcodecs.IMREAD_COLOR);
-            } else {
-                // OpenCV 中的 imread 方法不支持中文路径，使用字节数组byte[]
-                byte[] bytes;
-                try {
-                    bytes = Files.readAllBytes(Paths.get(filePath));
-                } catch (IOException e) {
-                    throw new LoadImageError("无法识别或读取图片: " + filePath);
+            boolean nonAscii = filePath.matches(".*[^\\x00-\\x7F].*");
+            Mat mat = null;
+            if (!nonAscii && !mmapFiles) {
+                mat = Imgcodecs.imread(filePath, flags);
+            }
+            if (mat == null || mat.empty()) {
+                if (mat != null) {
+                    mat.release();
                 }
-                MatOfByte mob = new MatOfByte(bytes);
-                mat = Imgcodecs.imdecode(mob, Imgcodecs.IMREAD_COLOR);
+                // OpenCV 中的 imread 方法在部分平台不支持非 ASCII 路径，内存映射文件后直接解码，不经过堆内 byte[]
+                mat = decodeMapped(Paths.get(filePath), flags);
             }
             if (mat.empty()) {
                 throw new LoadImageError("无法识别或读取图片: " + filePath);
@@ -80,53 +314,65 @@ public class LoadImage {
         if (img instanceof byte[]) {
             byte[] bytes = (byte[]) img;
             MatOfByte mob = new MatOfByte(bytes);
-            Mat mat = Imgcodecs.imdecode(mob, Imgcodecs.IMREAD_COLOR);
+            Mat mat = Imgcodecs.imdecode(mob, flags);
+            mob.release();
+            if (mat.empty()) {
+                throw new LoadImageError("无法识别或读取二进制图片数据");
+            }
+            return mat;
+        }
+
+        // 3. 如果是 ByteBuffer，认为是 position 到 limit 之间的图片二进制内容
+        if (img instanceof ByteBuffer) {
+            Mat mat = decode((ByteBuffer) img, flags);
             if (mat.empty()) {
                 throw new LoadImageError("无法识别或读取二进制图片数据");
             }
             return mat;
         }
 
-        // 3. 如果已经是 Mat，则直接返回
+        // 4. 如果已经是 Mat，则直接返回
         if (img instanceof Mat) {
             return (Mat) img;
         }
 
-        // 4. 如果是 BufferedImage 转 Mat
+        // 5. 如果是 BufferedImage 转 Mat
         if (img instanceof BufferedImage) {
             return bufferedImageToMat((BufferedImage) img);
         }
 
-        // 4. 其他类型不支持
+        // 6. 其他类型不支持
         throw new LoadImageError("不支持的图片输入类型: " + img.getClass().getName());
     }
 
     /**
-     * 将图像转换为 BGR 三通道
+     * 将图像转换为三通道
      *
      * @param img           OpenCV 的 Mat（可能是多通道）
-     * @param originImgType 原始输入类型，影响判断是否需要从 RGB 转 BGR
-     * @return BGR 格式的 Mat
+     * @param originImgType 原始输入类型，影响三通道图像的通道顺序
+     * @return 三通道 Mat 及其通道顺序
      * @throws LoadImageError 如果通道数/维度异常
      */
-    private Mat convertImg(Mat img, Class<?> originImgType) throws LoadImageError {
+    private LoadedImage convertImg(Mat img, Class<?> originImgType) throws LoadImageError {
         // OpenCV 的 Mat 通常是 2D（图像高度、宽度），通道数可以从 type 或者 shape 获得
         int channels = img.channels();
-        int depth = img.depth();
-        int rows = img.rows();
-        int cols = img.cols();
+        // 直接传入的 Mat 由调用方管理，其余都是加载时创建的，转换后即可释放
+        boolean decoded = !Mat.class.isAssignableFrom(originImgType);
 
         // 如果是单通道灰度
         if (channels == 1) {
             // 将灰度图转换为 BGR
             Mat bgrMat = new Mat();
             Imgproc.cvtColor(img, bgrMat, Imgproc.COLOR_GRAY2BGR);
-            return bgrMat;
+            releaseIf(decoded, img);
+            return new LoadedImage(bgrMat, ChannelOrder.RGB);
         }
 
         // 如果是两通道 (例如灰度 + alpha)
         if (channels == 2) {
-            return cvtTwoToThree(img);
+            Mat bgrMat = cvtTwoToThree(img);
+            releaseIf(decoded, img);
+            return new LoadedImage(bgrMat, ChannelOrder.RGB);
         }
 
         // 如果是三通道
@@ -134,25 +380,33 @@ public class LoadImage {
             if (String.class.isAssignableFrom(originImgType)
                     || Path.class.isAssignableFrom(originImgType)
                     || byte[].class.isAssignableFrom(originImgType)
+                    || ByteBuffer.class.isAssignableFrom(originImgType)
                     || BufferedImage.class.isAssignableFrom(originImgType)) {
-                // 假设原图是 RGB，需要转换成 BGR
-                Mat bgrMat = new Mat();
-                Imgproc.cvtColor(img, bgrMat, Imgproc.COLOR_RGB2BGR);
-                return bgrMat;
+                // 解码得到的是 BGR，交换到 RGB 的操作推迟到前处理
+                return new LoadedImage(img, ChannelOrder.BGR);
             }
-            // 如果原图已经是 BGR 格式，则直接返回
-            return img;
+            // 直接传入的 Mat 不做转换
+            return new LoadedImage(img, ChannelOrder.RGB, img.size(), false);
         }
 
         // 如果是四通道 (例如 RGBA)
         if (channels == 4) {
-            return cvtFourToThree(img);
+            Mat bgrMat = cvtFourToThree(img);
+            releaseIf(decoded, img);
+            return new LoadedImage(bgrMat, ChannelOrder.RGB);
         }
 
         // 如果通道数不在 [1, 2, 3, 4]，则抛出异常
+        releaseIf(decoded, img);
         throw new LoadImageError("图像通道数(" + channels + ")不在[1, 2, 3, 4]范围内！");
     }
 
+    private static void releaseIf(boolean condition, Mat mat) {
+        if (condition) {
+            mat.release();
+        }
+    }
+
     /**
      * 将灰度+alpha 的两通道图转换为 BGR 三通道
      *
@@ -160,35 +414,38 @@ public class LoadImage {
      * @return 转换后得到的 BGR
      */
     private Mat cvtTwoToThree(Mat img) {
-        // 拆分通道: [灰度, alpha]
-        List<Mat> channels = new ArrayList<>();
-        Core.split(img, channels);
+        try (MatArena arena = new MatArena()) {
+            // 拆分通道: [灰度, alpha]
+            List<Mat> channels = new ArrayList<>();
+            Core.split(img, channels);
+            arena.trackAll(channels);
 
-        // 第一个通道：灰度
-        Mat gray = channels.get(0);
-        // 第二个通道：alpha
-        Mat alpha = channels.get(1);
+            // 第一个通道：灰度
+            Mat gray = channels.get(0);
+            // 第二个通道：alpha
+            Mat alpha = channels.get(1);
 
-        // 将灰度转换为 BGR
-        Mat bgr = new Mat();
-        Imgproc.cvtColor(gray, bgr, Imgproc.COLOR_GRAY2BGR);
+            // 将灰度转换为 BGR
+            Mat bgr = arena.newMat();
+            Imgproc.cvtColor(gray, bgr, Imgproc.COLOR_GRAY2BGR);
 
-        // alpha 取反（类似 bitwise_not）
-        Mat notAlpha = new Mat();
-        Core.bitwise_not(alpha, notAlpha);
+            // alpha 取反（类似 bitwise_not）
+            Mat notAlpha = arena.newMat();
+            Core.bitwise_not(alpha, notAlpha);
 
-        // 将 notAlpha 也转换为三通道，便于与 BGR 做后续操作
-        Mat notAlpha3 = new Mat();
-        Imgproc.cvtColor(notAlpha, notAlpha3, Imgproc.COLOR_GRAY2BGR);
+            // 将 notAlpha 也转换为三通道，便于与 BGR 做后续操作
+            Mat notAlpha3 = arena.newMat();
+            Imgproc.cvtColor(notAlpha, notAlpha3, Imgproc.COLOR_GRAY2BGR);
 
-        // 使用 alpha 作为掩膜，对原 BGR 部分进行保留
-        Mat newImg = new Mat();
-        Core.bitwise_and(bgr, bgr, newImg, alpha);
+            // 使用 alpha 作为掩膜，对原 BGR 部分进行保留
+            Mat newImg = new Mat();
+            Core.bitwise_and(bgr, bgr, newImg, alpha);
 
-        // 将 newImg 与 notAlpha3 合并
-        Core.add(newImg, notAlpha3, newImg);
+            // 将 newImg 与 notAlpha3 合并
+            Core.add(newImg, notAlpha3, newImg);
 
-        return newImg;
+            return newImg;
+        }
     }
 
     /**
@@ -198,52 +455,55 @@ public class LoadImage {
      * @return 转换后得到的 BGR
      */
     private Mat cvtFourToThree(Mat img) {
-        // 拆分 RGBA
-        List<Mat> channels = new ArrayList<>();
-        Core.split(img, channels); // [R, G, B, A]
-
-        Mat r = channels.get(0);
-        Mat g = channels.get(1);
-        Mat b = channels.get(2);
-        Mat a = channels.get(3);
-
-        // 合并 BGR (在 OpenCV 中通常顺序是 B, G, R)
-        // 由于 Python 逻辑假定输入是 RGBA，因此这里顺序可做调整
-        // 若原图确实是 RGBA，则 channels[0] = R, channels[1] = G, channels[2] = B
-        // 这里想要得到 BGR 需要 merge(b, g, r)
-        List<Mat> bgrList = new ArrayList<>();
-        bgrList.add(b);
-        bgrList.add(g);
-        bgrList.add(r);
-        Mat bgr = new Mat();
-        Core.merge(bgrList, bgr);
-
-        // alpha 取反
-        Mat notA = new Mat();
-        Core.bitwise_not(a, notA);
-
-        // 转成三通道
-        Mat notA3 = new Mat();
-        Imgproc.cvtColor(notA, notA3, Imgproc.COLOR_GRAY2BGR);
-
-        // 使用 alpha 作为掩膜，对 BGR 进行保留
-        Mat newImg = new Mat();
-        Core.bitwise_and(bgr, bgr, newImg, a);
-
-        // 计算 newImg 的平均值（类似 np.mean(new_img)）
-        // meanScalar.val[0], [1], [2], [3] 对应 B, G, R, alpha
-        Scalar meanScalar = Core.mean(newImg);
-        double avgColor = (meanScalar.val[0] + meanScalar.val[1] + meanScalar.val[2]) / 3.0;
+        try (MatArena arena = new MatArena()) {
+            // 拆分 RGBA
+            List<Mat> channels = new ArrayList<>();
+            Core.split(img, channels); // [R, G, B, A]
+            arena.trackAll(channels);
+
+            Mat r = channels.get(0);
+            Mat g = channels.get(1);
+            Mat b = channels.get(2);
+            Mat a = channels.get(3);
+
+            // 合并 BGR (在 OpenCV 中通常顺序是 B, G, R)
+            // 由于 Python 逻辑假定输入是 RGBA，因此这里顺序可做调整
+            // 若原图确实是 RGBA，则 channels[0] = R, channels[1] = G, channels[2] = B
+            // 这里想要得到 BGR 需要 merge(b, g, r)
+            List<Mat> bgrList = new ArrayList<>();
+            bgrList.add(b);
+            bgrList.add(g);
+            bgrList.add(r);
+            Mat bgr = arena.newMat();
+            Core.merge(bgrList, bgr);
+
+            // alpha 取反
+            Mat notA = arena.newMat();
+            Core.bitwise_not(a, notA);
+
+            // 转成三通道
+            Mat notA3 = arena.newMat();
+            Imgproc.cvtColor(notA, notA3, Imgproc.COLOR_GRAY2BGR);
+
+            // 使用 alpha 作为掩膜，对 BGR 进行保留
+            Mat newImg = new Mat();
+            Core.bitwise_and(bgr, bgr, newImg, a);
+
+            // 计算 newImg 的平均值（类似 np.mean(new_img)）
+            // meanScalar.val[0], [1], [2], [3] 对应 B, G, R, alpha
+            Scalar meanScalar = Core.mean(newImg);
+            double avgColor = (meanScalar.val[0] + meanScalar.val[1] + meanScalar.val[2]) / 3.0;
+
+            if (avgColor <= 0.0) {
+                // 如果平均值接近 0，说明基本是黑色，则将 newImg 与 notA3 合并
+                Core.add(newImg, notA3, newImg);
+            } else {
+                // 否则对 newImg 进行取反，得到类似黑色背景的效果
+                Core.bitwise_not(newImg, newImg);
+            }
 
-        if (avgColor <= 0.0) {
-            // 如果平均值接近 0，说明基本是黑色，则将 newImg 与 notA3 合并
-            Core.add(newImg, notA3, newImg);
-        } else {
-            // 否则对 newImg 进行取反，得到类似黑色背景的效果
-            Core.bitwise_not(newImg, newImg);
+            return newImg;
         }
-
-        return newImg;
     }
 
     /**
@@ -260,25 +520,170 @@ public class LoadImage {
     }
 
     /**
-     * 将 BufferedImage 转为 Mat
+     * 将 BufferedImage 转为 BGR 三通道 Mat
+     * TYPE_3BYTE_BGR / TYPE_INT_RGB / TYPE_4BYTE_ABGR / TYPE_BYTE_GRAY 直接批量读取栅格数据，按行块交给 OpenCV 一次转换写入结果，
+     * 其余类型通过 Graphics2D 重绘为 TYPE_3BYTE_BGR
+     *
      * @param bi 传入的 BufferedImage
      * @return 转换后的 Mat
      */
     private Mat bufferedImageToMat(BufferedImage bi) {
-        // 先转换为 TYPE_3BYTE_BGR 类型（OpenCV 默认是 BGR）
-        if (bi.getType() != BufferedImage.TYPE_3BYTE_BGR) {
-            BufferedImage convertedImg = new BufferedImage(bi.getWidth(), bi.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
-            Graphics2D g = convertedImg.createGraphics();
-            g.drawImage(bi, 0, 0, null);
-            g.dispose();
-            bi = convertedImg;
+        switch (bi.getType()) {
+            case BufferedImage.TYPE_3BYTE_BGR:
+                return threeByteBgrToMat(bi);
+            case BufferedImage.TYPE_4BYTE_ABGR:
+                return fourByteAbgrToMat(bi);
+            case BufferedImage.TYPE_INT_RGB:
+                return intRgbToMat(bi);
+            case BufferedImage.TYPE_BYTE_GRAY:
+                return byteGrayToMat(bi);
+            default:
+                return redrawToMat(bi);
         }
+    }
+
+    /**
+     * 先转换为 TYPE_3BYTE_BGR 类型（OpenCV 默认是 BGR），适用于其他不常见的图像类型
+     */
+    private Mat redrawToMat(BufferedImage bi) {
+        BufferedImage convertedImg = new BufferedImage(bi.getWidth(), bi.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = convertedImg.createGraphics();
+        g.drawImage(bi, 0, 0, null);
+        g.dispose();
+        return threeByteBgrToMat(convertedImg);
+    }
 
-        byte[] data = ((DataBufferByte) bi.getRaster().getDataBuffer()).getData();
+    /**
+     * TYPE_3BYTE_BGR：与 Mat 内存布局相同，直接写入
+     */
+    private Mat threeByteBgrToMat(BufferedImage bi) {
         Mat mat = new Mat(bi.getHeight(), bi.getWidth(), CvType.CV_8UC3);
-        mat.put(0, 0, data);
+        putRows(bi.getRaster(), mat, 0, bi.getHeight());
+        return mat;
+    }
+
+    /**
+     * TYPE_4BYTE_ABGR：按行块写入四通道 Mat，拆出 BGR 与 alpha 后与黑色背景合成 (c * a / 255)，与 Graphics2D 重绘结果一致
+     */
+    private Mat fourByteAbgrToMat(BufferedImage bi) {
+        WritableRaster raster = bi.getRaster();
+        int width = raster.getWidth();
+        int height = raster.getHeight();
+        int blockRows = blockRows(width);
+        Mat mat = new Mat(height, width, CvType.CV_8UC3);
+        Mat abgr = new Mat(blockRows, width, CvType.CV_8UC4);
+        Mat alpha = new Mat(blockRows, width, CvType.CV_8UC1);
+        Mat alpha3 = new Mat();
+        // ABGR 字节中 A=0、B=1、G=2、R=3，分别写入 bgr 的 0、1、2 通道与 alpha
+        MatOfInt fromTo = new MatOfInt(1, 0, 2, 1, 3, 2, 0, 3);
+        for (int y = 0; y < height; y += blockRows) {
+            int rows = Math.min(blockRows, height - y);
+            Mat src = abgr.rowRange(0, rows);
+            Mat a = alpha.rowRange(0, rows);
+            Mat dst = mat.rowRange(y, y + rows);
+            putRows(raster, src, y, rows);
+            Core.mixChannels(Collections.singletonList(src), Arrays.asList(dst, a), fromTo);
+            Imgproc.cvtColor(a, alpha3, Imgproc.COLOR_GRAY2BGR);
+            Core.multiply(dst, alpha3, dst, 1.0 / 255);
+            src.release();
+            a.release();
+            dst.release();
+        }
+        abgr.release();
+        alpha.release();
+        alpha3.release();
+        fromTo.release();
+        return mat;
+    }
+
+    /**
+     * TYPE_INT_RGB：每个 int 为 0x00RRGGBB，按小端复制到直接缓冲区后即为 BGRX 字节，按行块由 OpenCV 去掉第四通道
+     */
+    private Mat intRgbToMat(BufferedImage bi) {
+        WritableRaster raster = bi.getRaster();
+        SinglePixelPackedSampleModel sm = (SinglePixelPackedSampleModel) raster.getSampleModel();
+        int[] data = ((DataBufferInt) raster.getDataBuffer()).getData();
+        int width = raster.getWidth();
+        int height = raster.getHeight();
+        int scanlineStride = sm.getScanlineStride();
+        // 子图像与父图像共享数据，起始位置由 sampleModelTranslate 给出
+        int base = raster.getDataBuffer().getOffset()
+                - raster.getSampleModelTranslateY() * scanlineStride - raster.getSampleModelTranslateX();
+
+        int blockRows = blockRows(width);
+        ByteBuffer block = intBlockBuffer(blockRows * width * 4);
+        IntBuffer ints = block.asIntBuffer();
+        Mat mat = new Mat(height, width, CvType.CV_8UC3);
+        for (int y = 0; y < height; y += blockRows) {
+            int rows = Math.min(blockRows, height - y);
+            ints.clear();
+            if (scanlineStride == width) {
+                ints.put(data, base + y * width, rows * width);
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    ints.put(data, base + (y + r) * scanlineStride, width);
+                }
+            }
+            Mat src = new Mat(rows, width, CvType.CV_8UC4, block);
+            Mat dst = mat.rowRange(y, y + rows);
+            Imgproc.cvtColor(src, dst, Imgproc.COLOR_BGRA2BGR);
+            src.release();
+            dst.release();
+        }
         return mat;
     }
 
+    /**
+     * TYPE_BYTE_GRAY：单通道直接写入后由 OpenCV 扩展为三通道（与 Graphics2D 重绘一样直接复制灰度值）
+     */
+    private Mat byteGrayToMat(BufferedImage bi) {
+        Mat gray = new Mat(bi.getHeight(), bi.getWidth(), CvType.CV_8UC1);
+        putRows(bi.getRaster(), gray, 0, bi.getHeight());
+        Mat bgr = new Mat();
+        Imgproc.cvtColor(gray, bgr, Imgproc.COLOR_GRAY2BGR);
+        gray.release();
+        return bgr;
+    }
+
+    /**
+     * 把字节栅格从 startRow 开始的 rows 行原样写入 dst，紧凑排列时整块写入，否则逐行写入
+     */
+    private static void putRows(WritableRaster raster, Mat dst, int startRow, int rows) {
+        ComponentSampleModel sm = (ComponentSampleModel) raster.getSampleModel();
+        byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+        int rowBytes = raster.getWidth() * sm.getPixelStride();
+        int scanlineStride = sm.getScanlineStride();
+        // 子图像与父图像共享数据，起始位置由 sampleModelTranslate 给出
+        int base = raster.getDataBuffer().getOffset()
+                - raster.getSampleModelTranslateY() * scanlineStride - raster.getSampleModelTranslateX() * sm.getPixelStride();
+        if (scanlineStride == rowBytes) {
+            dst.put(0, 0, data, base + startRow * scanlineStride, rows * rowBytes);
+            return;
+        }
+        for (int r = 0; r < rows; r++) {
+            dst.put(r, 0, data, base + (startRow + r) * scanlineStride, rowBytes);
+        }
+    }
+
+    /**
+     * 每块的行数，使四通道行块约为 BLOCK_BYTES 大小，保持在缓存内
+     */
+    private static int blockRows(int width) {
+        return Math.max(1, BLOCK_BYTES / (width * 4));
+    }
+
+    /**
+     * 每个线程复用的直接缓冲区，供 OpenCV 以 Mat 形式直接读取
+     */
+    private static ByteBuffer intBlockBuffer(int capacity) {
+        ByteBuffer buffer = INT_BLOCK.get();
+        if (buffer == null || buffer.capacity() < capacity) {
+            buffer = ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+            INT_BLOCK.set(buffer);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
 }
 
@@ -0,0 +1,71 @@
+package io.github.hzkitty.rapidlayout.utils;
+
+import org.opencv.core.Mat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一次调用内的临时 Mat 集合，close 时统一 release，native 内存不再依赖 GC 回收 Java 对象后才释放
+ * 需要返回给调用方的 Mat 通过 {@link #detach(Mat)} 移出。实例不是线程安全的。
+ * <pre>
+ * try (MatArena arena = new MatArena()) {
+ *     Mat gray = arena.newMat();
+ *     ...
+ *     return arena.detach(result);
+ * }
+ * </pre>
+ */
+public class MatArena implements AutoCloseable {
+
+    private final List<Mat> mats = new ArrayList<>();
+
+    /**
+     * 创建由当前 arena 管理的空 Mat
+     */
+    public Mat newMat() {
+        return track(new Mat());
+    }
+
+    /**
+     * 交由当前 arena 管理，close 时释放
+     *
+     * @return 传入的 mat
+     */
+    public <T extends Mat> T track(T mat) {
+        mats.add(mat);
+        return mat;
+    }
+
+    /**
+     * 批量交由当前 arena 管理，如 Core.split 的输出
+     *
+     * @return 传入的列表
+     */
+    public <T extends Mat> List<T> trackAll(List<T> list) {
+        mats.addAll(list);
+        return list;
+    }
+
+    /**
+     * 移出当前 arena，close 时不再释放，由调用方负责
+     *
+     * @return 传入的 mat
+     */
+    public <T extends Mat> T detach(T mat) {
+        for (int i = mats.size() - 1; i >= 0; i--) {
+            if (mats.get(i) == mat) {
+                mats.remove(i);
+            }
+        }
+        return mat;
+    }
+
+    @Override
+    public void close() {
+        for (int i = mats.size() - 1; i >= 0; i--) {
+            mats.get(i).release();
+        }
+        mats.clear();
+    }
+}
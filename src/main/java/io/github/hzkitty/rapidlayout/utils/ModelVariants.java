@@ -0,0 +1,77 @@
+package io.github.hzkitty.rapidlayout.utils;
+
+import io.github.hzkitty.rapidlayout.entity.LayoutModelType;
+import io.github.hzkitty.rapidlayout.entity.ModelPrecision;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 模型精度变体的选择。INT8 变体与 FP32 模型放在同一目录（或 classpath 同一路径）下，文件名加 _int8 后缀，
+ * 如 doclayout_yolo_docstructbench_imgsz1024.onnx 对应 doclayout_yolo_docstructbench_imgsz1024_int8.onnx。
+ * 变体用 onnxruntime.quantization 生成，卷积为主的 YOLOv8n / DocLayout-YOLO 建议用带校准数据的 QDQ 静态量化：
+ * <pre>
+ * quantize_static(fp32_path, int8_path, calibration_reader, quant_format=QuantFormat.QDQ,
+ *                 activation_type=QuantType.QUInt8, weight_type=QuantType.QInt8)
+ * </pre>
+ * 也可用 quantize_dynamic(fp32_path, int8_path, weight_type=QuantType.QUInt8) 动态量化。
+ * PP 版面模型的检测头对量化误差敏感，不提供 INT8 变体。
+ */
+public class ModelVariants {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModelVariants.class);
+
+    public static final String INT8_SUFFIX = "_int8";
+
+    /**
+     * 该模型类型是否有 INT8 变体（YOLOv8n 与 DocLayout-YOLO）
+     */
+    public static boolean supportsInt8(LayoutModelType modelType) {
+        String name = modelType.getModelName();
+        return name.startsWith("yolov8n_") || name.startsWith("doclayout");
+    }
+
+    /**
+     * FP32 模型路径对应的 INT8 变体路径
+     */
+    public static String int8Path(String modelPath) {
+        return modelPath.endsWith(".onnx")
+                ? modelPath.substring(0, modelPath.length() - ".onnx".length()) + INT8_SUFFIX + ".onnx"
+                : modelPath + INT8_SUFFIX;
+    }
+
+    /**
+     * 按精度偏好、模型类型与 CPU 特性选择实际加载的模型
+     *
+     * @param modelPath FP32 模型路径，按 OrtInferSession 的模型路径规则解析
+     * @param useGpu    是否使用 CUDA/DML，GPU 上 AUTO 不选择 INT8
+     * @return 实际加载的模型路径
+     */
+    public static String select(String modelPath, LayoutModelType modelType, ModelPrecision precision, boolean useGpu) {
+        if (precision == null || precision == ModelPrecision.FP32) {
+            return modelPath;
+        }
+        if (!supportsInt8(modelType)) {
+            if (precision == ModelPrecision.INT8) {
+                logger.warn("{} has no INT8 variant, using FP32 model {}", modelType, modelPath);
+            }
+            return modelPath;
+        }
+        String int8 = int8Path(modelPath);
+        if (precision == ModelPrecision.INT8) {
+            if (!OrtInferSession.modelExists(int8)) {
+                throw new IllegalArgumentException("INT8 模型未找到: " + int8);
+            }
+            return int8;
+        }
+        // AUTO：没有 INT8 点积指令时量化模型的反量化开销通常抵消收益，只在 VNNI/AMX 上选择 INT8
+        if (useGpu || !CpuFeatures.hasInt8DotProduct()) {
+            return modelPath;
+        }
+        if (!OrtInferSession.modelExists(int8)) {
+            logger.info("CPU supports VNNI/AMX but INT8 model {} not found, using FP32", int8);
+            return modelPath;
+        }
+        logger.info("CPU supports VNNI/AMX, using INT8 model {}", int8);
+        return int8;
+    }
+}
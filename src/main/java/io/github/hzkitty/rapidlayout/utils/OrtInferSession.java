@@ -5,77 +5,312 @@ import ai.onnxruntime.OrtSession.Result;
 import ai.onnxruntime.OrtSession.SessionOptions;
 import ai.onnxruntime.providers.OrtCUDAProviderOptions;
 import io.github.hzkitty.rapidlayout.entity.OrtInferConfig;
+import io.github.hzkitty.rapidlayout.entity.ProfileReport;
+import io.github.hzkitty.rapidlayout.entity.TensorView;
+import io.github.hzkitty.rapidlayout.utils.pre.PreUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.nio.FloatBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class OrtInferSession {
+/**
+ * ONNX Runtime 推理会话，输入输出信息在构造时缓存
+ * OrtSession 支持并发 run，输出缓冲区复用按线程隔离（见 BufferPool），因此一个实例可由多个线程同时使用
+ * <p>
+ * sessionPoolSize > 1 时内部持有 K 个会话，各自使用 intraOpNumThreads 个线程，每次推理分派给当前并发数最少的会话；
+ * 第一个会话常驻，其余会话空闲超过 sessionIdleTimeoutMillis 后关闭以释放 arena 内存，需要时再重新创建。
+ * <p>
+ * 配置了 optimizedModelCacheDir 时，首次加载把 ALL_OPT 图优化后的模型以 ORT 格式写入缓存目录，
+ * 之后的会话（包括进程重启后）直接加载该文件并跳过图优化，缩短冷启动时间；命中缓存时 classpath 模型不会被读入堆内存。
+ * <p>
+ * IO 绑定方式（{@link #boundInput} + {@link #runBound}）：每个线程按输入形状预先创建输入、输出 OnnxTensor 及其 direct buffer，
+ * 之后同形状的推理不再创建张量，输出由 ONNX Runtime 直接写入固定的 buffer，后处理按下标读取。
+ * 线程结束后，其绑定在任一线程下次创建绑定时关闭。
+ */
+public class OrtInferSession implements AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(OrtInferSession.class);
+    // 图优化级别，同时是优化模型缓存键的一部分
+    private static final SessionOptions.OptLevel OPT_LEVEL = SessionOptions.OptLevel.ALL_OPT;
 
     private final OrtEnvironment env;
+    private final OrtInferConfig config;
+    // 第一个会话，常驻，元数据从这里读取
     private final OrtSession session;
+    // 会话池，slots[0] 持有 session
+    private final Slot[] slots;
+    // 模型是否从 classpath 读取（非绝对路径）
+    private final boolean classpathModel;
+    // 从 classpath 读取的模型字节，首次以原始模型创建会话时才读取，之后重新创建会话时复用；只加载优化模型缓存时始终为 null
+    private volatile byte[] modelBytes;
+    // 关闭空闲会话的后台任务，只有一个会话或不回收时为 null
+    private final ScheduledExecutorService reaper;
 
-    private boolean useCuda = false;
-    private boolean useDirectML = false;
+    private final boolean useCuda;
+    private final boolean useDirectML;
+    private final boolean reuseBuffers;
+
+    // 输入输出信息在初始化时缓存，避免每次推理重新构建
+    private final String inputName;
+    private final long[] inputShape;
+    private final List<String> outputNames;
+    private final long[][] outputShapes;
+    private final String[] outputKeys;
+    // 所有输出均为静态形状的三维 float 张量时，才能预先分配并复用输出缓冲区
+    private final boolean pinnableOutputs;
+    // IO 绑定：每个线程按输入形状缓存的张量
+    private final ThreadLocal<Map<String, Binding>> bindings = new ThreadLocal<>();
+    // 各线程的绑定，由自身加锁保护；已结束线程的绑定在任一线程下次创建绑定时关闭，其余在 close 时统一释放
+    // 强引用 Thread 而非 WeakHashMap，保证条目在 native 张量关闭之前不会随 GC 消失
+    private final Map<Thread, Map<String, Binding>> threadBindings = new HashMap<>();
+    // 已优化模型的缓存文件，可用时新会话直接加载它
+    private volatile Path optimizedModel;
 
 
     public OrtInferSession(OrtInferConfig ortInferConfig) {
         logger.info("Initializing OrtInferSession...");
 
         String modelPath = ortInferConfig.getModelPath();
+        this.config = ortInferConfig;
         this.useCuda = ortInferConfig.isUseCuda();
         this.useDirectML = ortInferConfig.isUseDml();
+        this.reuseBuffers = ortInferConfig.isReuseBuffers();
 
         // 1、创建 ONNX Runtime 环境
         this.env = OrtEnvironment.getEnvironment("OrtInferSessionEnv");
 
         try {
-            // 2. 初始化 SessionOptions
-            SessionOptions sessionOptions = initSessionOptions(ortInferConfig);
-            EnumSet<OrtProvider> availableProviders = env.getAvailableProviders();
-            if (this.useCuda && availableProviders.contains(OrtProvider.CUDA)) {
-                OrtCUDAProviderOptions providerOptions = new OrtCUDAProviderOptions(ortInferConfig.deviceId);
-                // kNextPowerOfTwo（默认值）以 2 的幂数扩展，而 kSameAsRequested 每次扩展的大小与分配请求的大小相同。
-                providerOptions.add("arena_extend_strategy", "kNextPowerOfTwo");
-                providerOptions.add("cudnn_conv_algo_search", "EXHAUSTIVE");
-                providerOptions.add("do_copy_in_default_stream", "1");
-                sessionOptions.addCUDA(providerOptions);
-                logger.info("Requested CUDA EP added to session options.");
-            }
-
-            if (this.useDirectML && availableProviders.contains(OrtProvider.DIRECT_ML)) {
-                sessionOptions.addDirectML(ortInferConfig.deviceId);
-                logger.info("Requested DirectML EP - might not be supported in certain Java packages.");
-            }
-
-            // 最后添加 CPU
-            if (availableProviders.contains(OrtProvider.CPU)) {
-                sessionOptions.addCPU(ortInferConfig.useArena);
-                logger.info("CPU EP added to session options.");
-            }
-
-            // 4. 创建推理会话
-            Path path = Paths.get(modelPath);
-            if (path.isAbsolute()) {
-                if (!path.toFile().exists()) {
-                    throw new RuntimeException("模型文件未找到: " + modelPath);
-                }
-                this.session = env.createSession(modelPath, sessionOptions);
+            // 2. 检查模型是否存在，classpath 模型的字节在需要以原始模型创建会话时才读取
+            this.classpathModel = isClasspathModel(modelPath);
+            if (!modelExists(modelPath)) {
+                throw new RuntimeException("模型文件未找到: " + modelPath);
+            }
+
+            // 3. 创建第一个推理会话（优先加载已优化模型的缓存，命中时不读取原始模型），其余会话按需创建
+            this.session = openSession(optimizedModelCacheFile());
+            int poolSize = Math.max(1, ortInferConfig.sessionPoolSize);
+            this.slots = new Slot[poolSize];
+            for (int i = 0; i < poolSize; i++) {
+                this.slots[i] = new Slot();
+            }
+            this.slots[0].session = session;
+            long idleTimeout = ortInferConfig.sessionIdleTimeoutMillis;
+            if (poolSize > 1 && idleTimeout > 0) {
+                this.reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "ort-session-reaper");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                long period = Math.max(1, idleTimeout / 2);
+                this.reaper.scheduleWithFixedDelay(() -> closeIdle(idleTimeout), period, period, TimeUnit.MILLISECONDS);
             } else {
-                InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream(modelPath);
-                this.session = env.createSession(loadModel(inputStream), sessionOptions);
+                this.reaper = null;
+            }
+
+            // 4. 缓存输入输出信息
+            this.inputName = this.getInputNames().get(0);
+            NodeInfo inputInfo = session.getInputInfo().get(inputName);
+            this.inputShape = inputInfo.getInfo() instanceof TensorInfo
+                    ? ((TensorInfo) inputInfo.getInfo()).getShape()
+                    : new long[0];
+            this.outputNames = this.getOutputNames();
+            this.outputShapes = new long[outputNames.size()][];
+            this.outputKeys = new String[outputNames.size()];
+            boolean pinnable = true;
+            int i = 0;
+            for (NodeInfo info : session.getOutputInfo().values()) {
+                this.outputKeys[i] = "ort.output." + info.getName();
+                if (info.getInfo() instanceof TensorInfo) {
+                    TensorInfo tensorInfo = (TensorInfo) info.getInfo();
+                    this.outputShapes[i] = tensorInfo.getShape();
+                    pinnable &= tensorInfo.type == OnnxJavaType.FLOAT && isStaticShape(outputShapes[i], 3);
+                } else {
+                    pinnable = false;
+                }
+                i++;
             }
+            this.pinnableOutputs = pinnable;
         } catch (OrtException e) {
             throw new RuntimeException(e);
         }
-        logger.info("OrtInferSession initialization completed.");
+        logger.info("OrtInferSession initialization completed, session pool size {}.", slots.length);
+    }
+
+    /**
+     * 创建第一个会话：缓存命中时加载缓存，否则正常加载并把优化后的模型写入缓存
+     *
+     * @param cacheFile 缓存文件，为 null 时不使用缓存
+     */
+    private OrtSession openSession(Path cacheFile) throws OrtException {
+        if (cacheFile == null) {
+            return createSession(null, null);
+        }
+        if (Files.isRegularFile(cacheFile)) {
+            try {
+                OrtSession cached = createSession(cacheFile, null);
+                this.optimizedModel = cacheFile;
+                logger.info("Loaded optimized model from {}", cacheFile);
+                return cached;
+            } catch (OrtException e) {
+                logger.warn("Ignoring invalid optimized model cache {}", cacheFile, e);
+            }
+        }
+        // 先写入临时文件再原子重命名，多个进程共享缓存目录时不会读到写了一半的文件；ORT 按 .ort 后缀识别格式
+        Path tmp = cacheFile.resolveSibling(cacheFile.getFileName() + "." + UUID.randomUUID() + ".ort");
+        OrtSession created;
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            created = createSession(null, tmp);
+        } catch (IOException | OrtException e) {
+            logger.warn("Failed to write optimized model to {}, loading without cache", cacheFile, e);
+            deleteQuietly(tmp);
+            return createSession(null, null);
+        }
+        try {
+            Files.move(tmp, cacheFile, StandardCopyOption.ATOMIC_MOVE);
+            this.optimizedModel = cacheFile;
+            logger.info("Saved optimized model to {}", cacheFile);
+        } catch (IOException e) {
+            logger.warn("Failed to save optimized model to {}", cacheFile, e);
+            deleteQuietly(tmp);
+        }
+        return created;
+    }
+
+    /**
+     * 已优化模型的缓存文件：模型 SHA-256 前 16 位、CPU 哈希、ONNX Runtime 版本、优化级别与执行设备任一不同都不复用
+     * （ALL_OPT 的优化结果与 CPU 指令集和执行设备相关）
+     */
+    private Path optimizedModelCacheFile() {
+        if (config.optimizedModelCacheDir == null) {
+            return null;
+        }
+        try {
+            String key = AutoTuner.modelHash(config.getModelPath()).substring(0, 16)
+                    + "-" + AutoTuner.cpuHash()
+                    + "-ort" + env.getVersion()
+                    + "-" + OPT_LEVEL.name().toLowerCase()
+                    + "-" + providerName(config);
+            return Paths.get(config.optimizedModelCacheDir).resolve(key + ".ort");
+        } catch (IOException e) {
+            logger.warn("Failed to hash model {}, optimized model cache disabled", config.getModelPath(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 按配置实际使用的执行设备，请求的设备不可用时为 cpu
+     */
+    static String providerName(OrtInferConfig config) {
+        EnumSet<OrtProvider> availableProviders = OrtEnvironment.getAvailableProviders();
+        if (config.isUseCuda() && availableProviders.contains(OrtProvider.CUDA)) {
+            return "cuda" + config.deviceId;
+        }
+        if (config.isUseDml() && availableProviders.contains(OrtProvider.DIRECT_ML)) {
+            return "dml" + config.deviceId;
+        }
+        return "cpu";
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.debug("Failed to delete {}", file, e);
+        }
+    }
+
+    /**
+     * 按配置创建一个新的会话，已有优化模型缓存时直接加载缓存
+     */
+    private OrtSession createSession() throws OrtException {
+        return createSession(optimizedModel, null);
+    }
+
+    /**
+     * @param optimized 已优化的 ORT 格式模型，不为 null 时加载它并关闭图优化
+     * @param saveTo    不为 null 时把优化后的模型以 ORT 格式写入该文件
+     */
+    private OrtSession createSession(Path optimized, Path saveTo) throws OrtException {
+        SessionOptions sessionOptions = initSessionOptions(config);
+        if (saveTo != null) {
+            sessionOptions.setOptimizedModelFilePath(saveTo.toString());
+            sessionOptions.addConfigEntry("session.save_model_format", "ORT");
+        }
+        return createSession(sessionOptions, optimized);
+    }
+
+    /**
+     * 以给定的 SessionOptions 添加执行设备并创建会话
+     *
+     * @param optimized 已优化的 ORT 格式模型，不为 null 时加载它并关闭图优化
+     */
+    private OrtSession createSession(SessionOptions sessionOptions, Path optimized) throws OrtException {
+        if (optimized != null) {
+            sessionOptions.setOptimizationLevel(SessionOptions.OptLevel.NO_OPT);
+        }
+        EnumSet<OrtProvider> availableProviders = env.getAvailableProviders();
+        if (this.useCuda && availableProviders.contains(OrtProvider.CUDA)) {
+            OrtCUDAProviderOptions providerOptions = new OrtCUDAProviderOptions(config.deviceId);
+            // kNextPowerOfTwo（默认值）以 2 的幂数扩展，而 kSameAsRequested 每次扩展的大小与分配请求的大小相同。
+            providerOptions.add("arena_extend_strategy", "kNextPowerOfTwo");
+            providerOptions.add("cudnn_conv_algo_search", "EXHAUSTIVE");
+            providerOptions.add("do_copy_in_default_stream", "1");
+            sessionOptions.addCUDA(providerOptions);
+            logger.info("Requested CUDA EP added to session options.");
+        }
+
+        if (this.useDirectML && availableProviders.contains(OrtProvider.DIRECT_ML)) {
+            sessionOptions.addDirectML(config.deviceId);
+            logger.info("Requested DirectML EP - might not be supported in certain Java packages.");
+        }
+
+        // 最后添加 CPU
+        if (availableProviders.contains(OrtProvider.CPU)) {
+            sessionOptions.addCPU(config.useArena);
+            logger.info("CPU EP added to session options.");
+        }
+
+        if (optimized != null) {
+            return env.createSession(optimized.toString(), sessionOptions);
+        }
+        return classpathModel
+                ? env.createSession(modelBytes(), sessionOptions)
+                : env.createSession(config.getModelPath(), sessionOptions);
+    }
+
+    /**
+     * classpath 模型的字节，首次调用时读取
+     */
+    private byte[] modelBytes() {
+        byte[] bytes = modelBytes;
+        if (bytes == null) {
+            synchronized (this) {
+                bytes = modelBytes;
+                if (bytes == null) {
+                    try {
+                        bytes = loadModel(openModel(config.getModelPath()));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                    modelBytes = bytes;
+                }
+            }
+        }
+        return bytes;
     }
 
     /**
@@ -93,10 +328,13 @@ public class OrtInferSession {
         if (interOpNumThreads >= 1 && interOpNumThreads <= cpuNums) {
             sessOpt.setInterOpNumThreads(interOpNumThreads);
         }
+        if (ortInferConfig.executionMode != null) {
+            sessOpt.setExecutionMode(ortInferConfig.executionMode);
+        }
         // 禁用 arena 内存池的扩展策略
         sessOpt.setCPUArenaAllocator(ortInferConfig.useArena);
         // 启用图优化
-        sessOpt.setOptimizationLevel(SessionOptions.OptLevel.ALL_OPT);
+        sessOpt.setOptimizationLevel(OPT_LEVEL);
         // 日志等级
         sessOpt.setSessionLogVerbosityLevel(4);
         sessOpt.setSessionLogLevel(OrtLoggingLevel.ORT_LOGGING_LEVEL_FATAL);
@@ -110,9 +348,9 @@ public class OrtInferSession {
      * @return 推理结果 (形状需根据模型而定)
      */
     public Object[] run(float[][][][] inputData) throws OrtException {
-        String inputName = this.getInputNames().get(0);
+        Slot slot = acquire();
         try (OnnxTensor tensor = OnnxTensor.createTensor(env, inputData)) {
-            try (Result result = session.run(Collections.singletonMap(inputName, tensor))) {
+            try (Result result = slot.session.run(Collections.singletonMap(inputName, tensor))) {
                 int outputSize = result.size();
                 Object[] outputs = new Object[outputSize];
                 // 遍历所有输出并存储到outputs数组中
@@ -122,9 +360,393 @@ public class OrtInferSession {
                 }
                 return outputs;
             }
+        } finally {
+            slot.release();
+        }
+    }
+
+    /**
+     * 执行推理，输入为连续存储的张量数据
+     * 若传入 direct FloatBuffer（native 字节序），OnnxTensor 会直接引用该内存，不再额外拷贝
+     *
+     * @param inputData 连续存储的输入张量数据，从 position 开始读取
+     * @param shape     输入张量形状，如 [1, C, H, W]；batch 维为动态的模型可传入 [N, C, H, W] 一次推理 N 张图像
+     * @return 推理结果 (形状需根据模型而定)
+     */
+    public Object[] run(FloatBuffer inputData, long[] shape) throws OrtException {
+        Slot slot = acquire();
+        try (OnnxTensor tensor = OnnxTensor.createTensor(env, inputData, shape)) {
+            // 预分配的输出缓冲区按模型声明的静态形状分配，batch 与之不同时不能使用
+            if (reuseBuffers && pinnableOutputs && shape[0] == outputShapes[0][0]) {
+                return runPinnedArrays(slot.session, tensor);
+            }
+            try (Result result = slot.session.run(Collections.singletonMap(inputName, tensor))) {
+                int outputSize = result.size();
+                Object[] outputs = new Object[outputSize];
+                for (int i = 0; i < outputSize; i++) {
+                    outputs[i] = result.get(i).getValue();
+                }
+                return outputs;
+            }
+        } finally {
+            slot.release();
         }
     }
 
+    /**
+     * 执行推理，输出以连续存储的形式返回，不转换为多维数组
+     * 复用缓冲区且输出形状固定时，直接返回 ONNX Runtime 写入的当前线程 BufferPool 中的 direct buffer（下一次推理时被覆盖）；
+     * 否则为各输出 OnnxTensor.getFloatBuffer() 的一次整块拷贝
+     *
+     * @param inputData 连续存储的输入张量数据，从 position 开始读取
+     * @param shape     输入张量形状，如 [1, C, H, W] 或 [N, C, H, W]
+     * @return 各输出的数据与形状
+     */
+    public TensorView[] runFlat(FloatBuffer inputData, long[] shape) throws OrtException {
+        Slot slot = acquire();
+        try (OnnxTensor tensor = OnnxTensor.createTensor(env, inputData, shape)) {
+            if (reuseBuffers && pinnableOutputs && shape[0] == outputShapes[0][0]) {
+                FloatBuffer[] buffers = runPinned(slot.session, tensor);
+                TensorView[] outputs = new TensorView[buffers.length];
+                for (int i = 0; i < buffers.length; i++) {
+                    outputs[i] = new TensorView(buffers[i], outputShapes[i]);
+                }
+                return outputs;
+            }
+            try (Result result = slot.session.run(Collections.singletonMap(inputName, tensor))) {
+                TensorView[] outputs = new TensorView[result.size()];
+                for (int i = 0; i < outputs.length; i++) {
+                    OnnxTensor output = (OnnxTensor) result.get(i);
+                    outputs[i] = new TensorView(output.getFloatBuffer(), output.getInfo().getShape());
+                }
+                return outputs;
+            }
+        } finally {
+            slot.release();
+        }
+    }
+
+    /**
+     * 把 runPinned 的输出拷贝到复用的 float[][][] 中，返回的数组在当前线程下一次推理时会被覆盖
+     */
+    private Object[] runPinnedArrays(OrtSession session, OnnxTensor input) throws OrtException {
+        BufferPool pool = BufferPool.get();
+        FloatBuffer[] buffers = runPinned(session, input);
+        Object[] outputs = new Object[buffers.length];
+        for (int i = 0; i < buffers.length; i++) {
+            long[] outShape = outputShapes[i];
+            float[][][] output = pool.floats(outputKeys[i], (int) outShape[0], (int) outShape[1], (int) outShape[2]);
+            FloatBuffer buffer = buffers[i];
+            buffer.rewind();
+            for (float[][] plane : output) {
+                for (float[] row : plane) {
+                    buffer.get(row);
+                }
+            }
+            buffer.rewind();
+            outputs[i] = output;
+        }
+        return outputs;
+    }
+
+    /**
+     * 输出直接写入当前线程 BufferPool 中预分配的 direct buffer，在当前线程下一次推理时会被覆盖
+     */
+    private FloatBuffer[] runPinned(OrtSession session, OnnxTensor input) throws OrtException {
+        BufferPool pool = BufferPool.get();
+        int outputSize = outputNames.size();
+        FloatBuffer[] buffers = new FloatBuffer[outputSize];
+        Map<String, OnnxTensor> pinned = new HashMap<>();
+        try {
+            for (int i = 0; i < outputSize; i++) {
+                buffers[i] = pool.floatBuffer(outputKeys[i], outputShapes[i]);
+                pinned.put(outputNames.get(i), OnnxTensor.createTensor(env, buffers[i], outputShapes[i]));
+            }
+            try (Result ignored = session.run(Collections.singletonMap(inputName, input), pinned)) {
+                return buffers;
+            }
+        } finally {
+            for (OnnxTensor tensor : pinned.values()) {
+                tensor.close();
+            }
+        }
+    }
+
+    /**
+     * 诊断：另建一个开启 ONNX Runtime 性能分析的会话，以给定输入推理 runs + 1 次（第一次作为预热不计入），
+     * 解析生成的 JSON trace，按算子类型与节点汇总耗时。不影响正在服务的会话，trace 文件解析后删除
+     *
+     * @param inputData 连续存储的输入张量数据，从 position 开始读取
+     * @param shape     输入张量形状
+     * @param runs      计入统计的推理次数
+     * @return 各算子类型与节点的耗时、占比与形状
+     */
+    public ProfileReport profile(FloatBuffer inputData, long[] shape, int runs) throws OrtException, IOException {
+        Path dir = Files.createTempDirectory("ort-profile");
+        Path trace = null;
+        try {
+            SessionOptions sessionOptions = initSessionOptions(config);
+            sessionOptions.enableProfiling(dir.resolve("ort").toString());
+            try (OrtSession profiling = createSession(sessionOptions, optimizedModel);
+                 OnnxTensor tensor = OnnxTensor.createTensor(env, inputData, shape)) {
+                for (int i = 0; i <= runs; i++) {
+                    try (Result ignored = profiling.run(Collections.singletonMap(inputName, tensor))) {
+                        // 只记录耗时
+                    }
+                }
+                trace = Paths.get(profiling.endProfiling());
+            }
+            return OrtProfiler.parse(trace, true);
+        } finally {
+            if (trace != null) {
+                deleteQuietly(trace);
+            }
+            deleteQuietly(dir);
+        }
+    }
+
+    /**
+     * IO 绑定方式的输入：当前线程对应该形状的 direct buffer（native 字节序），position 为 0
+     * 写满 shape 各维乘积个 float 后调用 {@link #runBound(long[])}
+     *
+     * @param shape 输入张量形状，如 [1, C, H, W]
+     * @return 输入 buffer，在当前线程同形状的下一次推理前保持有效
+     */
+    public FloatBuffer boundInput(long[] shape) throws OrtException {
+        FloatBuffer input = binding(shape).input;
+        input.clear();
+        return input;
+    }
+
+    /**
+     * 以 {@link #boundInput(long[])} 中写入的数据推理，输出写入预先绑定的 buffer，不创建新张量，也不转换为多维数组
+     * 某个形状首次推理时尚不知道动态输出的形状，先普通推理一次确定输出形状并创建绑定，之后都走绑定输出
+     *
+     * @param shape 输入张量形状，与 boundInput 相同
+     * @return 各输出的连续数据，在当前线程同形状的下一次推理时被覆盖
+     */
+    public TensorView[] runBound(long[] shape) throws OrtException {
+        Binding binding = binding(shape);
+        Slot slot = acquire();
+        try {
+            Map<String, OnnxTensor> inputs = Collections.singletonMap(inputName, binding.inputTensor);
+            if (binding.outputs == null) {
+                try (Result result = slot.session.run(inputs)) {
+                    binding.bindOutputs(result);
+                }
+            } else {
+                try (Result ignored = slot.session.run(inputs, binding.pinned)) {
+                    // 输出已写入绑定的 buffer
+                }
+            }
+            return binding.outputs;
+        } finally {
+            slot.release();
+        }
+    }
+
+    private Binding binding(long[] shape) throws OrtException {
+        Map<String, Binding> local = bindings.get();
+        String key = Arrays.toString(shape);
+        Binding binding = local == null ? null : local.get(key);
+        if (binding != null) {
+            return binding;
+        }
+        synchronized (threadBindings) {
+            closeDeadThreadBindings();
+            if (local == null) {
+                local = new LinkedHashMap<>(4, 0.75f, true);
+                bindings.set(local);
+                threadBindings.put(Thread.currentThread(), local);
+            }
+            // 每个线程最多保留 4 种形状，超出时关闭最久未用的
+            if (local.size() >= 4) {
+                Iterator<Binding> eldest = local.values().iterator();
+                Binding evicted = eldest.next();
+                eldest.remove();
+                evicted.close();
+            }
+            binding = new Binding(shape.clone());
+            local.put(key, binding);
+        }
+        return binding;
+    }
+
+    /**
+     * 关闭已结束线程的绑定，线程不断新建、退出（每请求一线程、弹性线程池）时 native 内存不随之增长
+     * 需持有 threadBindings 的锁；线程结束后其绑定不会再被访问，可以安全关闭
+     */
+    private void closeDeadThreadBindings() {
+        Iterator<Map.Entry<Thread, Map<String, Binding>>> it = threadBindings.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Thread, Map<String, Binding>> entry = it.next();
+            if (!entry.getKey().isAlive()) {
+                for (Binding binding : entry.getValue().values()) {
+                    binding.close();
+                }
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * 当前持有 IO 绑定的线程数（含已结束、尚未回收的线程）
+     */
+    public int getBoundThreadCount() {
+        synchronized (threadBindings) {
+            return threadBindings.size();
+        }
+    }
+
+    /**
+     * 一个输入形状对应的输入、输出张量
+     */
+    private class Binding {
+        private final FloatBuffer input;
+        private final OnnxTensor inputTensor;
+        private TensorView[] outputs;
+        private final Map<String, OnnxTensor> pinned = new HashMap<>();
+
+        Binding(long[] shape) throws OrtException {
+            this.input = PreUtils.allocateTensor(shape);
+            this.inputTensor = OnnxTensor.createTensor(env, input, shape);
+        }
+
+        /**
+         * 按首次推理的实际输出形状分配输出 buffer 并绑定，同时把本次结果拷贝进去
+         */
+        void bindOutputs(Result result) throws OrtException {
+            TensorView[] views = new TensorView[result.size()];
+            try {
+                for (int i = 0; i < views.length; i++) {
+                    OnnxTensor tensor = (OnnxTensor) result.get(i);
+                    long[] outShape = tensor.getInfo().getShape();
+                    FloatBuffer buffer = PreUtils.allocateTensor(outShape);
+                    buffer.put(tensor.getFloatBuffer());
+                    buffer.rewind();
+                    views[i] = new TensorView(buffer, outShape);
+                    pinned.put(outputNames.get(i), OnnxTensor.createTensor(env, buffer, outShape));
+                }
+            } catch (OrtException | RuntimeException e) {
+                closePinned();
+                throw e;
+            }
+            this.outputs = views;
+        }
+
+        private void closePinned() {
+            for (OnnxTensor tensor : pinned.values()) {
+                tensor.close();
+            }
+            pinned.clear();
+        }
+
+        void close() {
+            inputTensor.close();
+            closePinned();
+        }
+    }
+
+    /**
+     * 选取当前并发数最少的会话并占用，并发数相同时优先已创建的会话；会话已被回收时重新创建
+     */
+    private Slot acquire() throws OrtException {
+        if (slots.length == 1) {
+            slots[0].inFlight.incrementAndGet();
+            return slots[0];
+        }
+        Slot best = slots[0];
+        for (int i = 1; i < slots.length; i++) {
+            Slot slot = slots[i];
+            int load = slot.inFlight.get();
+            int bestLoad = best.inFlight.get();
+            if (load < bestLoad || (load == bestLoad && slot.session != null && best.session == null)) {
+                best = slot;
+            }
+        }
+        synchronized (best) {
+            if (best.session == null) {
+                best.session = createSession();
+                logger.info("Created pooled OrtSession.");
+            }
+            best.inFlight.incrementAndGet();
+        }
+        return best;
+    }
+
+    /**
+     * 关闭空闲超过 idleTimeout 的会话，第一个会话常驻
+     */
+    private void closeIdle(long idleTimeout) {
+        long now = System.currentTimeMillis();
+        for (int i = 1; i < slots.length; i++) {
+            Slot slot = slots[i];
+            synchronized (slot) {
+                if (slot.session != null && slot.inFlight.get() == 0 && now - slot.lastUsed > idleTimeout) {
+                    try {
+                        slot.session.close();
+                        logger.info("Closed idle pooled OrtSession.");
+                    } catch (OrtException e) {
+                        logger.warn("Failed to close idle OrtSession", e);
+                    }
+                    slot.session = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 当前已创建的会话数
+     */
+    public int getLiveSessionCount() {
+        int count = 0;
+        for (Slot slot : slots) {
+            if (slot.session != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 关闭所有会话
+     */
+    @Override
+    public void close() throws OrtException {
+        if (reaper != null) {
+            reaper.shutdownNow();
+        }
+        synchronized (threadBindings) {
+            for (Map<String, Binding> local : threadBindings.values()) {
+                for (Binding binding : local.values()) {
+                    binding.close();
+                }
+                local.clear();
+            }
+            threadBindings.clear();
+        }
+        for (Slot slot : slots) {
+            synchronized (slot) {
+                if (slot.session != null) {
+                    slot.session.close();
+                    slot.session = null;
+                }
+            }
+        }
+    }
+
+    private static boolean isStaticShape(long[] shape, int rank) {
+        if (shape.length != rank) {
+            return false;
+        }
+        for (long dim : shape) {
+            if (dim <= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * 获取模型的输入名字列表
      */
@@ -136,6 +758,20 @@ public class OrtInferSession {
         return names;
     }
 
+    /**
+     * 获取模型第一个输入的形状，如 [1, 3, 640, 640]，动态维度为 -1
+     */
+    public long[] getInputShape() {
+        return inputShape.clone();
+    }
+
+    /**
+     * 模型输入的 batch 维是否为动态维度，即是否支持一次推理多张图像
+     */
+    public boolean isDynamicBatch() {
+        return inputShape.length == 4 && inputShape[0] <= 0;
+    }
+
     /**
      * 获取模型的输出名字列表
      */
@@ -176,13 +812,86 @@ public class OrtInferSession {
         }
     }
 
+    /**
+     * 会话池中的一个位置，session 为 null 表示已被回收
+     */
+    private static class Slot {
+        private volatile OrtSession session;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private void release() {
+            lastUsed = System.currentTimeMillis();
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * 模型路径规则：绝对路径为文件，否则为 classpath 资源。以下方法是该规则的唯一实现，
+     * 调优、INT8 变体选择与多模型注册表都通过它们定位模型
+     */
+    static boolean isClasspathModel(String modelPath) {
+        return !Paths.get(modelPath).isAbsolute();
+    }
+
+    /**
+     * 模型文件或 classpath 资源是否存在
+     */
+    public static boolean modelExists(String modelPath) {
+        return isClasspathModel(modelPath)
+                ? Thread.currentThread().getContextClassLoader().getResource(modelPath) != null
+                : Files.isRegularFile(Paths.get(modelPath));
+    }
+
+    /**
+     * 打开模型数据流，由调用方关闭
+     */
+    public static InputStream openModel(String modelPath) throws IOException {
+        if (!isClasspathModel(modelPath)) {
+            return Files.newInputStream(Paths.get(modelPath));
+        }
+        InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(modelPath);
+        if (in == null) {
+            throw new IOException("模型文件未找到: " + modelPath);
+        }
+        return in;
+    }
+
+    /**
+     * 模型大小（字节），classpath 资源取不到长度时为 -1
+     */
+    public static long modelSize(String modelPath) throws IOException {
+        if (!isClasspathModel(modelPath)) {
+            return Files.size(Paths.get(modelPath));
+        }
+        return modelResource(modelPath).openConnection().getContentLengthLong();
+    }
+
+    /**
+     * 模型最后修改时间（毫秒），classpath 资源取 jar 条目或文件的时间，未知时为 0
+     */
+    public static long modelLastModified(String modelPath) throws IOException {
+        if (!isClasspathModel(modelPath)) {
+            return Files.getLastModifiedTime(Paths.get(modelPath)).toMillis();
+        }
+        return modelResource(modelPath).openConnection().getLastModified();
+    }
+
+    private static URL modelResource(String modelPath) throws IOException {
+        URL url = Thread.currentThread().getContextClassLoader().getResource(modelPath);
+        if (url == null) {
+            throw new IOException("模型文件未找到: " + modelPath);
+        }
+        return url;
+    }
+
     private byte[] loadModel(InputStream modelInputStream) {
         try (
                 InputStream inputStream = modelInputStream;
                 ByteArrayOutputStream buffer = new ByteArrayOutputStream()
         ) {
             int nRead;
-            byte[] data = new byte[1024];
+            byte[] data = new byte[1 << 16];
 
             while ((nRead = inputStream.read(data, 0, data.length)) != -1) {
                 buffer.write(data, 0, nRead);
@@ -0,0 +1,168 @@
+package io.github.hzkitty.rapidlayout.utils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.github.hzkitty.rapidlayout.RapidLayout;
+import io.github.hzkitty.rapidlayout.entity.LayoutConfig;
+import io.github.hzkitty.rapidlayout.entity.LayoutModelType;
+import io.github.hzkitty.rapidlayout.entity.ProfileReport;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 解析 ONNX Runtime 性能分析生成的 JSON trace（Chrome trace 格式的事件数组）：
+ * cat 为 Session、name 为 model_run 的事件是一次推理，cat 为 Node、name 以 _kernel_time 结尾的事件是一个节点的内核执行，
+ * args 中带有算子类型 (op_name)、执行设备与输入输出形状
+ */
+public class OrtProfiler {
+
+    private static final String KERNEL_SUFFIX = "_kernel_time";
+
+    /**
+     * 汇总 trace 文件
+     *
+     * @param trace         SessionOptions.enableProfiling 生成的 JSON 文件
+     * @param skipFirstRun  是否丢弃第一次推理（含 arena 扩展与算子选择）及其间的节点事件
+     */
+    public static ProfileReport parse(Path trace, boolean skipFirstRun) throws IOException {
+        JsonArray events;
+        try (Reader reader = Files.newBufferedReader(trace)) {
+            events = JsonParser.parseReader(reader).getAsJsonArray();
+        }
+
+        List<long[]> runs = new ArrayList<>();
+        for (JsonElement element : events) {
+            JsonObject event = element.getAsJsonObject();
+            if ("Session".equals(string(event, "cat")) && "model_run".equals(string(event, "name"))) {
+                runs.add(new long[]{event.get("ts").getAsLong(), event.get("dur").getAsLong()});
+            }
+        }
+        runs.sort(Comparator.comparingLong(run -> run[0]));
+        long from = skipFirstRun && runs.size() > 1 ? runs.get(1)[0] : Long.MIN_VALUE;
+        long inferenceMicros = 0;
+        int runCount = 0;
+        for (long[] run : runs) {
+            if (run[0] >= from) {
+                inferenceMicros += run[1];
+                runCount++;
+            }
+        }
+
+        Map<String, Acc> nodes = new LinkedHashMap<>();
+        Map<String, Acc> operators = new LinkedHashMap<>();
+        for (JsonElement element : events) {
+            JsonObject event = element.getAsJsonObject();
+            String name = string(event, "name");
+            if (!"Node".equals(string(event, "cat")) || name == null || !name.endsWith(KERNEL_SUFFIX)
+                    || event.get("ts").getAsLong() < from) {
+                continue;
+            }
+            JsonObject args = event.has("args") ? event.getAsJsonObject("args") : new JsonObject();
+            String opType = string(args, "op_name");
+            String provider = string(args, "provider");
+            long dur = event.get("dur").getAsLong();
+            String nodeName = name.substring(0, name.length() - KERNEL_SUFFIX.length());
+            Acc node = nodes.computeIfAbsent(nodeName, k -> new Acc(k, opType, provider));
+            node.add(dur);
+            node.inputShapes = shapes(args.get("input_type_shape"));
+            node.outputShapes = shapes(args.get("output_type_shape"));
+            operators.computeIfAbsent(opType, k -> new Acc(k, opType, provider)).add(dur);
+        }
+        return new ProfileReport(runCount, inferenceMicros,
+                entries(operators, inferenceMicros), entries(nodes, inferenceMicros));
+    }
+
+    private static List<ProfileReport.Entry> entries(Map<String, Acc> accs, long inferenceMicros) {
+        List<ProfileReport.Entry> entries = new ArrayList<>(accs.size());
+        for (Acc acc : accs.values()) {
+            double share = inferenceMicros > 0 ? (double) acc.micros / inferenceMicros : 0;
+            entries.add(new ProfileReport.Entry(acc.name, acc.opType, acc.provider, acc.micros, acc.calls, share,
+                    acc.inputShapes, acc.outputShapes));
+        }
+        entries.sort(Comparator.comparingLong(ProfileReport.Entry::getTotalMicros).reversed());
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * [{"float": [1, 3, 1024, 1024]}, ...] => ["float[1,3,1024,1024]", ...]
+     */
+    private static List<String> shapes(JsonElement element) {
+        if (element == null || !element.isJsonArray()) {
+            return Collections.emptyList();
+        }
+        List<String> shapes = new ArrayList<>();
+        for (JsonElement item : element.getAsJsonArray()) {
+            for (Map.Entry<String, JsonElement> typed : item.getAsJsonObject().entrySet()) {
+                shapes.add(typed.getKey() + typed.getValue().toString().replace(" ", ""));
+            }
+        }
+        return shapes;
+    }
+
+    private static String string(JsonObject object, String key) {
+        JsonElement value = object.get(key);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    private static class Acc {
+        private final String name;
+        private final String opType;
+        private final String provider;
+        private long micros;
+        private int calls;
+        private List<String> inputShapes = Collections.emptyList();
+        private List<String> outputShapes = Collections.emptyList();
+
+        Acc(String name, String opType, String provider) {
+            this.name = name;
+            this.opType = opType;
+            this.provider = provider;
+        }
+
+        void add(long dur) {
+            micros += dur;
+            calls++;
+        }
+    }
+
+    /**
+     * 命令行：OrtProfiler &lt;模型类型&gt; &lt;模型路径&gt; &lt;图片&gt; [--runs N] [--top N]
+     * 以图片的实际输入分析模型，输出各算子类型与耗时最多的节点，默认 10 次推理、前 20 个节点
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> positional = new ArrayList<>();
+        int runs = 10;
+        int top = 20;
+        for (int i = 0; i < args.length; i++) {
+            if ("--runs".equals(args[i]) && i + 1 < args.length) {
+                runs = Integer.parseInt(args[++i]);
+            } else if ("--top".equals(args[i]) && i + 1 < args.length) {
+                top = Integer.parseInt(args[++i]);
+            } else {
+                positional.add(args[i]);
+            }
+        }
+        if (positional.size() < 3) {
+            System.err.println("Usage: OrtProfiler <模型类型> <模型路径> <图片> [--runs N] [--top N]");
+            System.exit(1);
+        }
+        LayoutConfig config = new LayoutConfig();
+        config.modelType = LayoutModelType.valueOf(positional.get(0));
+        config.modelPath = positional.get(1);
+        try (RapidLayout layout = RapidLayout.create(config)) {
+            System.out.println(layout.profile(Paths.get(positional.get(2)).toAbsolutePath().toString(), runs).format(top));
+        }
+    }
+}
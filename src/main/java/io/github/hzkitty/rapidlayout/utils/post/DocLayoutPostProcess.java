@@ -1,19 +1,21 @@
 package io.github.hzkitty.rapidlayout.utils.post;
 
+import io.github.hzkitty.rapidlayout.entity.ResizeInfo;
 import io.github.hzkitty.rapidlayout.entity.Triple;
 import org.opencv.core.Size;
 
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * DocLayout-YOLO 模型的后处理，缩放信息随每次调用传入，实例无可变状态，可由多个线程同时调用
+ */
 public class DocLayoutPostProcess {
     private final List<String> labels;
     private final double confThreshold;
     private final double iouThreshold;
 
-    private int imgHeight, imgWidth;
-    private int inputHeight, inputWidth;
-
     public DocLayoutPostProcess(List<String> labels, double confThres, double iouThres) {
         this.labels = labels;
         this.confThreshold = confThres;
@@ -21,83 +23,60 @@ public class DocLayoutPostProcess {
     }
 
     public Triple<List<float[]>, List<Float>, List<String>> call(float[][][][] output, Size oriImgShape, int[] imgShape) {
-        // 设置原始图像和输入图像的尺寸
-        this.imgHeight = (int) oriImgShape.height;
-        this.imgWidth = (int) oriImgShape.width;
-        this.inputHeight = imgShape[0];
-        this.inputWidth = imgShape[1];
-
-        float[][] outputBatch = squeeze2D(output[0]);
-
-        // 提取框坐标、置信度和类别ID
-        List<float[]> boxesList = new ArrayList<>();
-        List<Float> confidencesList = new ArrayList<>();
-        List<Integer> classIdsList = new ArrayList<>();
-
-        for (int i = 0; i < outputBatch.length; i++) {
-            float[] detection = outputBatch[i];
-            float confidence = detection[detection.length - 2];
-            int classId = (int) detection[detection.length - 1];
-            if (confidence > this.confThreshold) {
-                // 提取框坐标
-                float[] box = new float[detection.length - 2];
-                System.arraycopy(detection, 0, box, 0, detection.length - 2);
-                boxesList.add(box);
-                confidencesList.add(confidence);
-                classIdsList.add(classId);
-            }
-        }
-
-        // 将列表转换为数组进行后续处理
-        float[] confidences = new float[confidencesList.size()];
-        for (int i = 0; i < confidencesList.size(); i++) {
-            confidences[i] = confidencesList.get(i);
-        }
-        int[] classIds = classIdsList.stream().mapToInt(Integer::intValue).toArray();
-
-        // 调整框的尺寸到原始图像尺寸
-        boxesList = rescaleBoxes(boxesList, this.inputWidth, this.inputHeight, this.imgWidth, this.imgHeight);
-
-        // 根据类别ID获取标签
-        List<String> labelsList = new ArrayList<>();
-        for (int classId : classIds) {
-            if (classId >= 0 && classId < this.labels.size()) {
-                labelsList.add(this.labels.get(classId));
-            } else {
-                labelsList.add("Unknown");
-            }
-        }
+        return call(output, ResizeInfo.stretch(oriImgShape, imgShape[1], imgShape[0]));
+    }
 
-        return Triple.of(boxesList, confidencesList, labelsList);
+    /**
+     * @param output     模型输出 [1, N, 6]，每行为 [x1, y1, x2, y2, score, classId]
+     * @param resizeInfo 前处理的缩放信息，用于将检测框还原到原图坐标（含 letterbox 补边）
+     */
+    public Triple<List<float[]>, List<Float>, List<String>> call(float[][][][] output, ResizeInfo resizeInfo) {
+        return call(output, resizeInfo, 0);
     }
 
-    private float[][] squeeze2D(float[][][] arr) {
-        return arr[0];
+    /**
+     * @param output     模型输出 [N, M, 6]，处理其中第 batchId 张图像的结果
+     * @param resizeInfo 该图像前处理的缩放信息
+     * @param batchId    图像在批次中的下标
+     */
+    public Triple<List<float[]>, List<Float>, List<String>> call(float[][][][] output, ResizeInfo resizeInfo, int batchId) {
+        float[][][] batch = output[0];
+        long[] shape = new long[]{batch.length, batch[0].length, batch[0][0].length};
+        FloatBuffer flat = FloatBuffer.allocate(batch.length * batch[0].length * batch[0][0].length);
+        PostUtils.flatten(batch, flat);
+        return call(flat, shape, resizeInfo, batchId);
     }
 
     /**
-     * 调整检测框的尺寸到原始图像尺寸
+     * 直接从连续存储的输出中处理第 batchId 张图像，不复制为多维数组
      *
-     * @param boxes       原始检测框
-     * @param inputWidth  输入图像的宽度
-     * @param inputHeight 输入图像的高度
-     * @param imgWidth    原始图像的宽度
-     * @param imgHeight   原始图像的高度
-     * @return 调整后的检测框
+     * @param output     模型输出数据，按 [N, M, 6] 行优先排列，每行为 [x1, y1, x2, y2, score, classId]，按绝对下标读取
+     * @param shape      输出形状
+     * @param resizeInfo 该图像前处理的缩放信息
+     * @param batchId    图像在批次中的下标
      */
-    private List<float[]> rescaleBoxes(List<float[]> boxes, int inputWidth, int inputHeight, int imgWidth, int imgHeight) {
-        float scaleX = (float) imgWidth / inputWidth;
-        float scaleY = (float) imgHeight / inputHeight;
-
-        List<float[]> rescaledBoxes = new ArrayList<>(boxes.size());
-        for (float[] box : boxes) {
-            // 框的格式为 [x, y, w, h]
-            float x = box[0] * scaleX; // x
-            float y = box[1] * scaleY; // y
-            float w = box[2] * scaleX; // w
-            float h = box[3] * scaleY; // h
-            rescaledBoxes.add(new float[]{x, y, w, h});
+    public Triple<List<float[]>, List<Float>, List<String>> call(FloatBuffer output, long[] shape, ResizeInfo resizeInfo, int batchId) {
+        int rows = (int) shape[1];
+        int cols = (int) shape[2];
+        int base = batchId * rows * cols;
+        List<float[]> boxesList = new ArrayList<>();
+        List<Float> confidencesList = new ArrayList<>();
+        List<String> labelsList = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            int offset = base + i * cols;
+            float confidence = output.get(offset + cols - 2);
+            if (confidence > this.confThreshold) {
+                // 框的格式为 [x1, y1, x2, y2]，四个坐标都需先减去补边
+                boxesList.add(new float[]{
+                        resizeInfo.toOriginX(output.get(offset)),
+                        resizeInfo.toOriginY(output.get(offset + 1)),
+                        resizeInfo.toOriginX(output.get(offset + 2)),
+                        resizeInfo.toOriginY(output.get(offset + 3))});
+                confidencesList.add(confidence);
+                int classId = (int) output.get(offset + cols - 1);
+                labelsList.add(classId >= 0 && classId < this.labels.size() ? this.labels.get(classId) : "Unknown");
+            }
         }
-        return rescaledBoxes;
+        return Triple.of(boxesList, confidencesList, labelsList);
     }
-}
\ No newline at end of file
+}
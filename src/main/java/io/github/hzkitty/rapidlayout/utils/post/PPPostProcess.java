@@ -7,23 +7,27 @@ import ai.djl.ndarray.NDManager;
 import ai.djl.ndarray.index.NDIndex;
 import ai.djl.ndarray.types.DataType;
 import ai.djl.ndarray.types.Shape;
+import io.github.hzkitty.rapidlayout.entity.ResizeInfo;
+import io.github.hzkitty.rapidlayout.entity.TensorView;
 import io.github.hzkitty.rapidlayout.entity.Triple;
 import org.opencv.core.Size;
 
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 /**
  * 后处理预测结果，包括置信度过滤、NMS（非极大值抑制）等操作。
+ * 构造后不再修改任何字段，可由多个线程同时调用（各自传入自己的 NDManager）。
  */
 public class PPPostProcess {
-    private List<String> labels;
-    private List<Integer> strides;
-    private float confThresh;
-    private float iouThresh;
-    private int nmsTopK;
-    private int keepTopK;
+    private final List<String> labels;
+    private final List<Integer> strides;
+    private final float confThresh;
+    private final float iouThresh;
+    private final int nmsTopK;
+    private final int keepTopK;
 
     /**
      * 构造函数
@@ -46,11 +50,50 @@ public class PPPostProcess {
      *
      * @param manager   NDManager 实例
      * @param oriShape  原始图像尺寸
-     * @param img       输入图像
+     * @param imgShape  输入张量形状 [N, C, H, W]，前处理为直接拉伸
      * @param preds     预测结果列表
      * @return 返回检测框、得分和类别名称
      */
-    public Triple<List<float[]>, List<Float>, List<String>> call(NDManager manager, Size oriShape, NDArray img, NDList preds) {
+    public Triple<List<float[]>, List<Float>, List<String>> call(NDManager manager, Size oriShape, long[] imgShape, NDList preds) {
+        return call(manager, ResizeInfo.stretch(oriShape, (int) imgShape[3], (int) imgShape[2]), preds);
+    }
+
+    /**
+     * 直接以连续存储的推理输出进行后处理，只取其中第 batchId 张图像，不经过多维数组
+     *
+     * @param manager    NDManager 实例
+     * @param resizeInfo 该图像前处理的缩放信息
+     * @param outputs    各输出数据，形状均为 [N, ...]
+     * @param batchId    图像在批次中的下标
+     * @return 返回检测框、得分和类别名称
+     */
+    public Triple<List<float[]>, List<Float>, List<String>> call(NDManager manager, ResizeInfo resizeInfo, TensorView[] outputs, int batchId) {
+        NDList preds = new NDList(outputs.length);
+        for (TensorView output : outputs) {
+            long[] shape = output.getShape().clone();
+            int size = 1;
+            for (int i = 1; i < shape.length; i++) {
+                size *= (int) shape[i];
+            }
+            shape[0] = 1;
+            FloatBuffer slice = output.getBuffer().duplicate();
+            slice.limit((batchId + 1) * size);
+            slice.position(batchId * size);
+            preds.add(manager.create(slice.slice(), new Shape(shape)));
+        }
+        return call(manager, resizeInfo, preds);
+    }
+
+    /**
+     * 主调用方法，进行后处理
+     *
+     * @param manager    NDManager 实例
+     * @param resizeInfo 前处理的缩放信息，用于将检测框还原到原图坐标（含 letterbox 补边）
+     * @param preds      预测结果列表
+     * @return 返回检测框、得分和类别名称
+     */
+    public Triple<List<float[]>, List<Float>, List<String>> call(NDManager manager, ResizeInfo resizeInfo, NDList preds) {
+        Size oriShape = resizeInfo.getOriSize();
         // 分离得分和原始框
         List<NDArray> scores = new ArrayList<>();
         List<NDArray> rawBoxes = new ArrayList<>();
@@ -67,7 +110,7 @@ public class PPPostProcess {
         NDList outBoxesList = new NDList();
 
         // 获取图像信息
-        ImageInfo imageInfo = imgInfo(oriShape, img);
+        ImageInfo imageInfo = imgInfo(manager, resizeInfo);
         Shape inputShape = imageInfo.inputShape;
         NDArray scaleFactor = imageInfo.scaleFactor;
 
@@ -149,11 +192,18 @@ public class PPPostProcess {
             } else {
                 NDArray pickedBoxProbsConcat = NDArrays.concat(pickedBoxProbs);
                 // 调整框的大小
-                pickedBoxProbsConcat.set(new NDIndex(":, :4"), warpBoxes(manager, pickedBoxProbsConcat.get(":, :4"), oriShape));
+                NDArray warped = warpBoxes(manager, pickedBoxProbsConcat.get(":, :4"));
+                if (resizeInfo.isPadded()) {
+                    // 去掉 letterbox 补边
+                    NDArray pad = manager.create(new float[]{resizeInfo.getPadLeft(), resizeInfo.getPadTop(),
+                            resizeInfo.getPadLeft(), resizeInfo.getPadTop()});
+                    warped = warped.sub(pad);
+                }
                 NDArray imScale = NDArrays.concat(new NDList(
                         scaleFactor.get(batchId).flip(0), scaleFactor.get(batchId).flip(0))
                 );
-                pickedBoxProbsConcat.set(new NDIndex(":, :4"), pickedBoxProbsConcat.get(":, :4").div(imScale));
+                // 还原到原图坐标后再裁剪到原图边界
+                pickedBoxProbsConcat.set(new NDIndex(":, :4"), clipBoxes(manager, warped.div(imScale), oriShape));
                 // 组合类别、得分和框
                 int[] picked_labels = pickedLabels.stream().mapToInt(Integer::intValue).toArray();
                 outBoxesList.add(
@@ -189,15 +239,12 @@ public class PPPostProcess {
     }
 
     /**
-     * 调整框的大小
+     * 调整框的大小，结果仍在模型输入坐标系下
      *
      * @param boxes     原始框
-     * @param oriShape 原始图像尺寸
      * @return 调整后的框
      */
-    private NDArray warpBoxes(NDManager manager, NDArray boxes, Size oriShape) {
-        double width =  oriShape.width;
-        double height = oriShape.height;
+    private NDArray warpBoxes(NDManager manager, NDArray boxes) {
         long n = boxes.getShape().get(0);
 
         if (n > 0) {
@@ -210,30 +257,41 @@ public class PPPostProcess {
             NDArray y = xy.get(":, {}", manager.create(new int[]{1, 3, 5, 7}));
             int[] axes1 = new int[]{1};
             xy = NDArrays.concat(new NDList(x.min(axes1), y.min(axes1), x.max(axes1), y.max(axes1))).reshape(4, n).transpose();
-
-            // 裁剪框到图像边界
-            xy.set(new NDIndex(":, {}", manager.create(new int[]{0, 2})), xy.get(":, {}", manager.create(new int[]{0, 2})).clip(0, width));
-            xy.set(new NDIndex(":, {}", manager.create(new int[]{1, 3})), xy.get(":, {}", manager.create(new int[]{1, 3})).clip(0, height));
             return xy.toType(DataType.FLOAT32, true);
         }
         return boxes;
     }
 
+    /**
+     * 裁剪框到图像边界
+     *
+     * @param boxes    原图坐标下的框
+     * @param oriShape 原始图像尺寸
+     * @return 裁剪后的框
+     */
+    private NDArray clipBoxes(NDManager manager, NDArray boxes, Size oriShape) {
+        if (boxes.getShape().get(0) == 0) {
+            return boxes;
+        }
+        NDArray xs = manager.create(new int[]{0, 2});
+        NDArray ys = manager.create(new int[]{1, 3});
+        NDArray clipped = boxes.duplicate();
+        clipped.set(new NDIndex(":, {}", xs), boxes.get(":, {}", xs).clip(0, oriShape.width));
+        clipped.set(new NDIndex(":, {}", ys), boxes.get(":, {}", ys).clip(0, oriShape.height));
+        return clipped;
+    }
+
     /**
      * 获取图像信息，包括原始尺寸、输入尺寸和缩放因子
      *
-     * @param originShape 原始图像尺寸
-     * @param img         输入图像
+     * @param resizeInfo 前处理的缩放信息
      * @return ImageInfo 对象
      */
-    private ImageInfo imgInfo(Size originShape, NDArray img) {
-        Shape resizeShape = img.getShape();
-        float imScaleY = (float) resizeShape.get(2) / (float) originShape.height;
-        float imScaleX = (float) resizeShape.get(3) / (float) originShape.width;
-        float[] scaleFactor = new float[]{imScaleY, imScaleX};
-
-        Shape imgShape = img.getShape().get(2) > 0 ? new Shape(img.getShape().get(2), img.getShape().get(3)) : new Shape(0, 0);
-        return new ImageInfo(originShape, imgShape, img.getManager().create(new float[][]{scaleFactor}));
+    private ImageInfo imgInfo(NDManager manager, ResizeInfo resizeInfo) {
+        float[] scaleFactor = new float[]{resizeInfo.getScaleY(), resizeInfo.getScaleX()};
+
+        Shape inputShape = new Shape(resizeInfo.getInputHeight(), resizeInfo.getInputWidth());
+        return new ImageInfo(resizeInfo.getOriSize(), inputShape, manager.create(new float[][]{scaleFactor}));
     }
 
     /**
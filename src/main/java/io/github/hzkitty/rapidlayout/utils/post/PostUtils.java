@@ -1,10 +1,24 @@
 package io.github.hzkitty.rapidlayout.utils.post;
 
+import java.nio.FloatBuffer;
 import java.util.*;
 import java.util.stream.IntStream;
 
 public class PostUtils {
 
+    /**
+     * 将三维数组按行优先顺序写入 dst 的 [0, size)，写完后 position 回到 0
+     */
+    public static void flatten(float[][][] src, FloatBuffer dst) {
+        dst.clear();
+        for (float[][] plane : src) {
+            for (float[] row : plane) {
+                dst.put(row);
+            }
+        }
+        dst.rewind();
+    }
+
     /**
      * 将 [x,y,w,h] 从 inputShape 缩放回原图尺寸
      */
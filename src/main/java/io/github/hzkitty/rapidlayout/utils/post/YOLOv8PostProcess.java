@@ -1,92 +1,132 @@
 package io.github.hzkitty.rapidlayout.utils.post;
 
+import io.github.hzkitty.rapidlayout.entity.ResizeInfo;
 import io.github.hzkitty.rapidlayout.entity.Triple;
+import io.github.hzkitty.rapidlayout.utils.BufferPool;
 import org.opencv.core.Size;
 
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+/**
+ * YOLOv8 版面模型的后处理，缩放信息随每次调用传入，实例无可变状态，可由多个线程同时调用
+ */
 public class YOLOv8PostProcess {
     private final List<String> labels;
     private final float confThreshold;
     private final float iouThreshold;
-
-    private int imgHeight, imgWidth;
-    private int inputHeight, inputWidth;
+    // 是否复用线程私有的缓冲区（见 BufferPool）
+    private final boolean reuseBuffers;
 
     public YOLOv8PostProcess(List<String> labels, float confThres, float iouThres) {
+        this(labels, confThres, iouThres, false);
+    }
+
+    public YOLOv8PostProcess(List<String> labels, float confThres, float iouThres, boolean reuseBuffers) {
         this.labels = labels;
         this.confThreshold = confThres;
         this.iouThreshold = iouThres;
+        this.reuseBuffers = reuseBuffers;
     }
 
     /**
-     * 转置二维 float 数组，类似于 numpy 的 .T 操作。
+     * 处理模型输出，筛选出有效的检测框、置信度和标签。
      *
-     * @param matrix 原始二维数组
-     * @return 转置后的二维数组
+     * @param output        模型的输出，四维数组
+     * @param oriImgShape   原始图像的尺寸 (height, width)
+     * @param imgShape      输入图像的尺寸 (height, width)，前处理为直接拉伸
+     * @return 包含检测框、置信度和标签的 Triple 对象
      */
-    private float[][] transpose(float[][] matrix) {
-        if (matrix.length == 0) return new float[0][0];
-        int rows = matrix.length;
-        int cols = matrix[0].length;
-        float[][] transposed = new float[cols][rows];
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                transposed[j][i] = matrix[i][j];
-            }
-        }
-        return transposed;
+    public Triple<List<float[]>, List<Float>, List<String>> call(float[][][][] output, Size oriImgShape, int[] imgShape) {
+        return call(output, ResizeInfo.stretch(oriImgShape, imgShape[1], imgShape[0]));
     }
 
     /**
      * 处理模型输出，筛选出有效的检测框、置信度和标签。
      *
-     * @param output        模型的输出，四维数组
-     * @param oriImgShape   原始图像的尺寸 (height, width)
-     * @param imgShape      输入图像的尺寸 (height, width)
+     * @param output     模型的输出，四维数组
+     * @param resizeInfo 前处理的缩放信息，用于将检测框还原到原图坐标（含 letterbox 补边）
      * @return 包含检测框、置信度和标签的 Triple 对象
      */
-    public Triple<List<float[]>, List<Float>, List<String>> call(float[][][][] output, Size oriImgShape, int[] imgShape) {
-        // 设置原始图像和输入图像的尺寸
-        this.imgHeight = (int) oriImgShape.height;
-        this.imgWidth = (int) oriImgShape.width;
-        this.inputHeight = imgShape[0];
-        this.inputWidth = imgShape[1];
+    public Triple<List<float[]>, List<Float>, List<String>> call(float[][][][] output, ResizeInfo resizeInfo) {
+        return call(output, resizeInfo, 0);
+    }
 
-        // 取第一个 batch 和第一个通道
-        float[][] outputBatch = output[0][0];
+    /**
+     * 处理批量推理输出中的第 batchId 张图像
+     *
+     * @param output     模型的输出，四维数组，output[0] 为 [N, 4 + 类别数, 锚点数]
+     * @param resizeInfo 该图像前处理的缩放信息
+     * @param batchId    图像在批次中的下标
+     * @return 包含检测框、置信度和标签的 Triple 对象
+     */
+    public Triple<List<float[]>, List<Float>, List<String>> call(float[][][][] output, ResizeInfo resizeInfo, int batchId) {
+        // 展平后按连续存储处理，与直接读取 OnnxTensor 输出的路径共用同一实现
+        float[][][] batch = output[0];
+        long[] shape = new long[]{batch.length, batch[0].length, batch[0][0].length};
+        FloatBuffer flat = reuseBuffers
+                ? BufferPool.get().floatBuffer("post.yolo.flat", shape)
+                : FloatBuffer.allocate(batch.length * batch[0].length * batch[0][0].length);
+        PostUtils.flatten(batch, flat);
+        return call(flat, shape, resizeInfo, batchId);
+    }
 
-        // 转置操作，类似于 np.squeeze(output[0]).T
-        float[][] predictions = transpose(outputBatch);
+    /**
+     * 直接从连续存储的输出中处理第 batchId 张图像，不转置、不复制为多维数组
+     * 逐行（类别）顺序扫描，按锚点累计最大分数，内存访问连续
+     *
+     * @param output     模型输出数据，按 [N, 4 + 类别数, 锚点数] 行优先排列，按绝对下标读取
+     * @param shape      输出形状
+     * @param resizeInfo 该图像前处理的缩放信息
+     * @param batchId    图像在批次中的下标
+     * @return 包含检测框、置信度和标签的 Triple 对象
+     */
+    public Triple<List<float[]>, List<Float>, List<String>> call(FloatBuffer output, long[] shape, ResizeInfo resizeInfo, int batchId) {
+        int rows = (int) shape[1];
+        int anchors = (int) shape[2];
+        int base = batchId * rows * anchors;
+        BufferPool pool = reuseBuffers ? BufferPool.get() : null;
+        float[] maxScores = pool == null ? new float[anchors] : pool.floats("post.yolo.maxScores", anchors);
+        float[] classIds = pool == null ? new float[anchors] : pool.floats("post.yolo.classIds", anchors);
+        Arrays.fill(maxScores, -Float.MAX_VALUE);
+        for (int j = 4; j < rows; j++) {
+            int offset = base + j * anchors;
+            for (int a = 0; a < anchors; a++) {
+                float score = output.get(offset + a);
+                if (score > maxScores[a]) {
+                    maxScores[a] = score;
+                    classIds[a] = j - 4;
+                }
+            }
+        }
 
-        // 提取框坐标、置信度和类别ID
         List<float[]> boxesList = new ArrayList<>();
         List<Float> confidencesList = new ArrayList<>();
         List<Integer> classIdsList = new ArrayList<>();
-
-        for (int i = 0; i < predictions.length; i++) {
-            float[] detection = predictions[i];
-            float maxScore = -Float.MAX_VALUE;
-            int maxClassId = -1;
-            for (int j = 4; j < detection.length; j++) {
-                if (detection[j] > maxScore) {
-                    maxScore = detection[j];
-                    maxClassId = j - 4; // 类别ID从0开始
-                }
-            }
-
-            if (maxScore > this.confThreshold) {
-                // 提取框坐标 [x, y, w, h]
-                boxesList.add(detection);
-                confidencesList.add(maxScore);
-                classIdsList.add(maxClassId);
+        for (int a = 0; a < anchors; a++) {
+            if (maxScores[a] > this.confThreshold) {
+                // 框坐标 [x, y, w, h] 位于前 4 行
+                boxesList.add(new float[]{
+                        output.get(base + a),
+                        output.get(base + anchors + a),
+                        output.get(base + 2 * anchors + a),
+                        output.get(base + 3 * anchors + a)});
+                confidencesList.add(maxScores[a]);
+                classIdsList.add((int) classIds[a]);
             }
         }
+        return select(boxesList, confidencesList, classIdsList, resizeInfo);
+    }
 
+    /**
+     * 缩放到原图坐标并做 NMS，得到最终结果
+     */
+    private Triple<List<float[]>, List<Float>, List<String>> select(List<float[]> boxesList, List<Float> confidencesList,
+                                                                    List<Integer> classIdsList, ResizeInfo resizeInfo) {
         // 如果没有检测到任何目标，返回空列表
         if (confidencesList.isEmpty()) {
             return Triple.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
@@ -94,7 +134,7 @@ public class YOLOv8PostProcess {
 
         // 将 boxesList 转换为 float[][] 数组
         // 调整框的尺寸到原始图像尺寸，并转换为 List<float[]>
-        float[][] rescaledBoxesList = extractBoxes(boxesList.toArray(new float[0][]));
+        float[][] rescaledBoxesList = extractBoxes(boxesList.toArray(new float[0][]), resizeInfo);
 
         // 执行多类别的非极大值抑制（NMS）以抑制重叠的检测框
         List<Integer> keepIndices = multiclassNms(Arrays.stream(rescaledBoxesList)
@@ -123,16 +163,17 @@ public class YOLOv8PostProcess {
      * 提取预测结果中的框坐标，并进行缩放和格式转换。
      *
      * @param predictions 模型预测结果，二维数组，每行包含 [x, y, w, h, ...]
+     * @param resizeInfo  前处理的缩放信息
      * @return 缩放后的框坐标，转换为 [x1, y1, x2, y2] 格式
      */
-    private float[][] extractBoxes(float[][] predictions) {
+    private float[][] extractBoxes(float[][] predictions, ResizeInfo resizeInfo) {
         // 提取框坐标 [x, y, w, h]
         float[][] boxes = Arrays.stream(predictions)
                 .map(pred -> Arrays.copyOfRange(pred, 0, 4))
                 .toArray(float[][]::new);
 
         // 缩放框到原始图像尺寸
-        boxes = rescaleBoxes(boxes, this.inputWidth, this.inputHeight, this.imgWidth, this.imgHeight);
+        boxes = rescaleBoxes(boxes, resizeInfo);
 
         // 转换为 [x1, y1, x2, y2] 格式
         boxes = xywh2xyxy(boxes);
@@ -140,18 +181,14 @@ public class YOLOv8PostProcess {
         return boxes;
     }
 
-    private float[][] rescaleBoxes(float[][] boxes, int inputWidth, int inputHeight, int imgWidth, int imgHeight) {
-        float scaleX = (float) imgWidth / inputWidth;
-        float scaleY = (float) imgHeight / inputHeight;
-
+    private float[][] rescaleBoxes(float[][] boxes, ResizeInfo resizeInfo) {
         float[][] rescaledBoxes = new float[boxes.length][boxes[0].length];
         for (int i = 0; i < boxes.length; i++) {
-            // 假设框的格式为 [x, y, w, h]
-            rescaledBoxes[i][0] = boxes[i][0] * scaleX; // x
-            rescaledBoxes[i][1] = boxes[i][1] * scaleY; // y
-            rescaledBoxes[i][2] = boxes[i][2] * scaleX; // w
-            rescaledBoxes[i][3] = boxes[i][3] * scaleY; // h
-            // 如果框的格式不同，请根据实际情况调整
+            // 框的格式为 [x, y, w, h]，中心点需先减去补边
+            rescaledBoxes[i][0] = resizeInfo.toOriginX(boxes[i][0]); // x
+            rescaledBoxes[i][1] = resizeInfo.toOriginY(boxes[i][1]); // y
+            rescaledBoxes[i][2] = resizeInfo.toOriginWidth(boxes[i][2]); // w
+            rescaledBoxes[i][3] = resizeInfo.toOriginHeight(boxes[i][3]); // h
         }
         return rescaledBoxes;
     }
@@ -0,0 +1,201 @@
+package io.github.hzkitty.rapidlayout.utils.pre;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * uint8 BGR (H,W,3) -> 归一化 float (3,H,W) 的预处理内核，三种模型的前处理共用
+ * 每个通道计算 (v * scale - mean[c]) / std[c]
+ * <p>
+ * JDK 17+ 且启用 {@code --add-modules jdk.incubator.vector} 时使用 Vector API (SIMD) 实现，
+ * 否则使用逐通道 256 项查找表的标量实现。可通过 {@code -Drapidlayout.vector=false} 强制使用标量实现。
+ * 标量实现与 OpenCV convertTo/subtract/divide 的结果逐位相同；带 mean/std 时 SIMD 实现以 float 做除法，
+ * 与标量实现可能存在 1 ulp 的差异，仅做缩放时两者逐位相同（JDK 17 构建时由 src/test/java17 下的测试验证）。
+ * <p>
+ * 通过 {@link #setParallel} 指定 ForkJoinPool 后，像素数不小于阈值的图像按行切分条带并行写入同一张量，
+ * 各条带写入位置互不重叠，结果与串行逐位相同。
+ */
+public class ChwNormalizer {
+
+    private static final Logger logger = Logger.getLogger(ChwNormalizer.class.getName());
+
+    private static final int CHANNELS = 3;
+
+    private static final boolean VECTOR_SUPPORTED = detectVector();
+
+    // 每个并行条带的最少行数，避免任务过细
+    private static final int MIN_STRIPE_ROWS = 16;
+
+    // 标量实现使用的查找表
+    private final float[][] lut;
+    // SIMD 实现使用的参数，由 VectorKernels.prepare 预先构造；swapRB 时按源图像通道顺序使用逆序的参数
+    private final Object vectorParams;
+    private final Object swappedVectorParams;
+    private final boolean useVector;
+    // 并行条带使用的线程池，为 null 时串行
+    private ForkJoinPool pool;
+    // 并行处理的最小像素数 (H*W)
+    private int parallelThreshold;
+
+    /**
+     * @param scale 缩放因子，如 1/255
+     * @param mean  逐通道均值，为 null 时不做减均值
+     * @param std   逐通道标准差，为 null 时不做除方差
+     */
+    public ChwNormalizer(double scale, double[] mean, double[] std) {
+        this(scale, mean, std, VECTOR_SUPPORTED);
+    }
+
+    /**
+     * @param useVector 是否使用 SIMD 实现，当前环境不支持时自动回退到标量实现
+     */
+    public ChwNormalizer(double scale, double[] mean, double[] std, boolean useVector) {
+        this.lut = PreUtils.buildLut(scale, mean, std, CHANNELS);
+        this.useVector = useVector && VECTOR_SUPPORTED;
+        if (this.useVector) {
+            float[] scales = new float[CHANNELS];
+            float[] means = new float[CHANNELS];
+            float[] stds = new float[CHANNELS];
+            for (int c = 0; c < CHANNELS; c++) {
+                scales[c] = (float) scale;
+                means[c] = mean == null ? 0f : (float) mean[c];
+                stds[c] = std == null ? 1f : (float) std[c];
+            }
+            this.vectorParams = VectorKernels.prepare(scales, means, stds);
+            this.swappedVectorParams = VectorKernels.prepare(reverse(scales), reverse(means), reverse(stds));
+        } else {
+            this.vectorParams = null;
+            this.swappedVectorParams = null;
+        }
+    }
+
+    /**
+     * 当前运行环境是否可用 Vector API 实现
+     */
+    public static boolean isVectorSupported() {
+        return VECTOR_SUPPORTED;
+    }
+
+    public boolean isUseVector() {
+        return useVector;
+    }
+
+    /**
+     * 设置按行条带并行处理，需在开始调用 {@link #apply} 之前设置
+     *
+     * @param pool              并行使用的线程池，为 null 时串行
+     * @param parallelThreshold 像素数 (H*W) 不小于该值时才并行，小图的任务调度开销大于收益
+     */
+    public void setParallel(ForkJoinPool pool, int parallelThreshold) {
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * 归一化并按 (C,H,W) 顺序写入 dst，从 dst 当前 position 开始，写完后 position 前移 3*H*W
+     *
+     * @param src    HWC 排列的 8 位像素
+     * @param height 高
+     * @param width  宽
+     * @param dst    目标 buffer
+     */
+    public void apply(byte[] src, int height, int width, FloatBuffer dst) {
+        apply(src, height, width, dst, false);
+    }
+
+    /**
+     * 归一化并按 (C,H,W) 顺序写入 dst，swapRB 时在同一次遍历中交换 R/B 通道（张量第 c 个通道取自源图像第 2-c 个通道）
+     *
+     * @param src    HWC 排列的 8 位像素
+     * @param height 高
+     * @param width  宽
+     * @param dst    目标 buffer
+     * @param swapRB 是否交换 R/B 通道，mean/std 始终按张量的通道顺序
+     */
+    public void apply(byte[] src, int height, int width, FloatBuffer dst, boolean swapRB) {
+        int base = dst.position();
+        if (pool != null && (long) height * width >= parallelThreshold && height >= 2 * MIN_STRIPE_ROWS) {
+            // 每个线程约分到 4 个条带，便于 work-stealing 均衡负载
+            int grain = Math.max(MIN_STRIPE_ROWS, (height + pool.getParallelism() * 4 - 1) / (pool.getParallelism() * 4));
+            pool.invoke(new StripeTask(src, height, width, dst, base, 0, height, grain, swapRB));
+        } else {
+            applyRows(src, height, width, dst, base, 0, height, swapRB);
+        }
+        dst.position(base + CHANNELS * height * width);
+    }
+
+    private void applyRows(byte[] src, int height, int width, FloatBuffer dst, int base, int rowStart, int rowEnd,
+                           boolean swapRB) {
+        if (useVector) {
+            VectorKernels.hwcToChw(src, height, width, swapRB ? swappedVectorParams : vectorParams, dst,
+                    base, rowStart, rowEnd, swapRB);
+        } else {
+            PreUtils.hwcToChw(src, height, width, CHANNELS, lut, dst, base, rowStart, rowEnd, swapRB);
+        }
+    }
+
+    private static float[] reverse(float[] values) {
+        float[] reversed = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            reversed[i] = values[values.length - 1 - i];
+        }
+        return reversed;
+    }
+
+    /**
+     * 二分行区间直到不超过 grain 行，再处理该条带
+     */
+    private final class StripeTask extends RecursiveAction {
+        private final byte[] src;
+        private final int height;
+        private final int width;
+        private final FloatBuffer dst;
+        private final int base;
+        private final int rowStart;
+        private final int rowEnd;
+        private final int grain;
+        private final boolean swapRB;
+
+        StripeTask(byte[] src, int height, int width, FloatBuffer dst, int base, int rowStart, int rowEnd, int grain,
+                   boolean swapRB) {
+            this.src = src;
+            this.height = height;
+            this.width = width;
+            this.dst = dst;
+            this.base = base;
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+            this.grain = grain;
+            this.swapRB = swapRB;
+        }
+
+        @Override
+        protected void compute() {
+            if (rowEnd - rowStart <= grain) {
+                applyRows(src, height, width, dst, base, rowStart, rowEnd, swapRB);
+                return;
+            }
+            int mid = (rowStart + rowEnd) >>> 1;
+            invokeAll(new StripeTask(src, height, width, dst, base, rowStart, mid, grain, swapRB),
+                    new StripeTask(src, height, width, dst, base, mid, rowEnd, grain, swapRB));
+        }
+    }
+
+    private static boolean detectVector() {
+        if (!Boolean.parseBoolean(System.getProperty("rapidlayout.vector", "true"))) {
+            return false;
+        }
+        try {
+            boolean supported = VectorKernels.isSupported();
+            logger.fine("Vector API preprocessing kernels " + (supported ? "enabled" : "unavailable"));
+            return supported;
+        } catch (LinkageError e) {
+            // JDK 17+ 但未添加 jdk.incubator.vector 模块
+            logger.log(Level.FINE, "Vector API preprocessing kernels unavailable", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package io.github.hzkitty.rapidlayout.utils.pre;
+
+import io.github.hzkitty.rapidlayout.entity.ResizeInfo;
+import io.github.hzkitty.rapidlayout.utils.BufferPool;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.dnn.Dnn;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * 基于 OpenCV dnn.blobFromImage 的前处理内核：resize、(v - mean) * scale、swapRB、NCHW 排列在一次 native 调用中完成，
+ * 逐通道除方差同样在 native 中对各通道平面原地进行。
+ * <p>
+ * 结果直接 copyTo 到包装 direct ByteBuffer 的 Mat 上，全程不经过 Java 数组。
+ */
+public class DnnNormalizer {
+    private final double scale;
+    // blobFromImage 先减均值再乘 scale，均值需换算到 0~255 的像素尺度
+    private final Scalar mean;
+    private final double[] std;
+
+    /**
+     * @param scale  缩放因子，如 1/255
+     * @param mean   逐通道均值（缩放后的尺度，按输出通道顺序），为 null 时不做减均值
+     * @param std    逐通道标准差，为 null 时不做除方差
+     */
+    public DnnNormalizer(double scale, double[] mean, double[] std) {
+        this.scale = scale;
+        this.mean = mean == null ? new Scalar(0, 0, 0) : new Scalar(mean[0] / scale, mean[1] / scale, mean[2] / scale);
+        this.std = std;
+    }
+
+    /**
+     * 前处理到新的（或 pool 中复用的）direct buffer
+     *
+     * @param img      8 位三通道输入图像
+     * @param info     缩放信息
+     * @param padValue letterbox 补边颜色（按 img 的通道顺序）
+     * @param swapRB   是否交换 R/B 通道
+     * @param pool     缓冲区池，为 null 时新分配
+     * @return [1, C, H, W] 张量，position 为 0
+     */
+    public FloatBuffer apply(Mat img, ResizeInfo info, Scalar padValue, boolean swapRB, BufferPool pool) {
+        long[] shape = info.getInputShape();
+        ByteBuffer bytes = pool == null
+                ? PreUtils.allocateTensorBytes(shape)
+                : pool.tensorBytes("pre.tensor.bytes", shape);
+        Mat dst = new Mat((int) (shape[1] * shape[2]), (int) shape[3], CvType.CV_32FC1, bytes);
+        try {
+            blob(img, info, padValue, swapRB, pool, dst);
+        } finally {
+            dst.release();
+        }
+        return bytes.asFloatBuffer();
+    }
+
+    /**
+     * 前处理并写入 dst 当前 position，写完后 position 前移 C*H*W
+     * FloatBuffer 无法包装为 Mat，这里需经 float[] 中转一次；不需要写入指定 buffer 时请使用
+     * {@link #apply(Mat, ResizeInfo, Scalar, boolean, BufferPool)}
+     */
+    public void apply(Mat img, ResizeInfo info, Scalar padValue, boolean swapRB, BufferPool pool, FloatBuffer dst) {
+        long[] shape = info.getInputShape();
+        int rows = (int) (shape[1] * shape[2]);
+        int cols = (int) shape[3];
+        Mat planes = pool == null ? new Mat() : pool.mat("pre.blob");
+        planes.create(rows, cols, CvType.CV_32FC1);
+        try {
+            blob(img, info, padValue, swapRB, pool, planes);
+            float[] data = pool == null ? new float[rows * cols] : pool.floats("pre.blob.data", rows * cols);
+            planes.get(0, 0, data);
+            dst.put(data);
+        } finally {
+            if (pool == null) {
+                planes.release();
+            }
+        }
+    }
+
+    /**
+     * blobFromImage 后写入 dst，dst 为 (C*H) x W 的 CV_32FC1
+     */
+    private void blob(Mat img, ResizeInfo info, Scalar padValue, boolean swapRB, BufferPool pool, Mat dst) {
+        if (img == null || img.empty()) {
+            throw new IllegalArgumentException("图像为空");
+        }
+        int height = info.getInputHeight();
+        int width = info.getInputWidth();
+        // 需要补边时先 resize + 补边，blobFromImage 内部的 resize 即为空操作
+        Mat src = info.isPadded() ? PreUtils.resize(img, info, padValue, pool) : img;
+        Mat blob = Dnn.blobFromImage(src, scale, new Size(width, height), mean, swapRB, false, CvType.CV_32F);
+        try {
+            Mat planes = blob.reshape(1, new int[]{dst.rows(), width});
+            // dst 尺寸和类型一致，copyTo 不会重新分配，直接写入 dst 的内存
+            planes.copyTo(dst);
+            planes.release();
+            if (std != null) {
+                for (int c = 0; c < std.length; c++) {
+                    Mat channel = dst.rowRange(c * height, (c + 1) * height);
+                    Core.divide(channel, new Scalar(std[c]), channel);
+                    channel.release();
+                }
+            }
+        } finally {
+            blob.release();
+            if (src != img && pool == null) {
+                src.release();
+            }
+        }
+    }
+}
@@ -1,72 +1,130 @@
 package io.github.hzkitty.rapidlayout.utils.pre;
 
+import io.github.hzkitty.rapidlayout.entity.ChannelOrder;
+import io.github.hzkitty.rapidlayout.entity.PreProcessBackend;
+import io.github.hzkitty.rapidlayout.entity.ResizeInfo;
+import io.github.hzkitty.rapidlayout.utils.BufferPool;
 import org.opencv.core.*;
-import org.opencv.imgproc.Imgproc;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.ForkJoinPool;
 
 public class DocLayoutPreProcess {
+    private static final Scalar PAD_VALUE = new Scalar(114, 114, 114);
+    // 模型输入张量的通道顺序：与此前版本一致，LoadImage.call 的结果 (RGB) 在此交换后送入模型
+    private static final ChannelOrder TENSOR_ORDER = ChannelOrder.BGR;
+
     private final int targetWidth;
     private final int targetHeight;
+    // > 0 时按 letterbox 等比缩放，短边只填充到 stride 的整数倍（动态输入尺寸的模型）；0 时直接拉伸到目标尺寸
+    private final int stride;
+    // uint8 -> v/255 的归一化内核
+    private final ChwNormalizer normalizer = new ChwNormalizer(1.0 / 255.0, null, null);
+    // OPENCV_DNN 后端的 blobFromImage 内核，JAVA 后端时为 null
+    private final DnnNormalizer dnnNormalizer;
+    // 是否复用线程私有的缓冲区（见 BufferPool）
+    private final boolean reuseBuffers;
 
     public DocLayoutPreProcess(int width, int height) {
+        this(width, height, false);
+    }
+
+    public DocLayoutPreProcess(int width, int height, boolean reuseBuffers) {
+        this(width, height, 0, reuseBuffers);
+    }
+
+    public DocLayoutPreProcess(int width, int height, int stride, boolean reuseBuffers) {
+        this(width, height, stride, reuseBuffers, PreProcessBackend.JAVA);
+    }
+
+    public DocLayoutPreProcess(int width, int height, int stride, boolean reuseBuffers, PreProcessBackend backend) {
         this.targetWidth = width;
         this.targetHeight = height;
+        this.stride = stride;
+        this.reuseBuffers = reuseBuffers;
+        this.dnnNormalizer = backend == PreProcessBackend.OPENCV_DNN
+                ? new DnnNormalizer(1.0 / 255.0, null, null)
+                : null;
     }
 
     /**
-     * 流程：1) BGR->RGB => 2) resize => 3) /255 => 4) permute => 5) expandDims
+     * 归一化 + permute 按行条带在 pool 中并行（仅 JAVA 后端），需在开始调用前设置
+     *
+     * @param pool              线程池，为 null 时串行
+     * @param parallelThreshold 模型输入像素数 (H*W) 不小于该值时才并行
      */
-    public float[][][][] call(Mat img) {
-        if (img == null || img.empty()) {
-            throw new IllegalArgumentException("图像为空");
-        }
+    public void setParallel(ForkJoinPool pool, int parallelThreshold) {
+        normalizer.setParallel(pool, parallelThreshold);
+    }
 
-        // 1. BGR->RGB
-        Mat rgbImg = new Mat();
-        Imgproc.cvtColor(img, rgbImg, Imgproc.COLOR_BGR2RGB);
+    /**
+     * 计算原图到模型输入的缩放信息，模型输入形状见 {@link ResizeInfo#getInputShape()}
+     */
+    public ResizeInfo resizeInfo(Size oriSize) {
+        return stride > 0
+                ? ResizeInfo.letterbox(oriSize, targetWidth, targetHeight, stride)
+                : ResizeInfo.stretch(oriSize, targetWidth, targetHeight);
+    }
 
-        // 2. resize
-        Mat resized = new Mat();
-        Imgproc.resize(rgbImg, resized, new Size(targetWidth, targetHeight));
+    public FloatBuffer call(Mat img) {
+        return call(img, resizeInfo(img.size()));
+    }
 
-        // 3. /255
-        resized.convertTo(resized, CvType.CV_32FC3, 1.0 / 255.0);
+    /**
+     * 输入为 RGB 顺序（与 LoadImage.call 的结果一致）
+     */
+    public FloatBuffer call(Mat img, ResizeInfo info) {
+        return call(img, info, ChannelOrder.RGB);
+    }
 
-        // 4. permute
-        float[][][] permuted = permute(resized);
+    /**
+     * 前处理并写入 direct FloatBuffer，形状见 {@link ResizeInfo#getInputShape()}
+     * 复用缓冲区时返回当前线程池中的 buffer，下一次调用会覆盖其内容
+     *
+     * @param order img 的实际通道顺序，与模型需要的顺序不同时在归一化时一并交换
+     */
+    public FloatBuffer call(Mat img, ResizeInfo info, ChannelOrder order) {
+        if (dnnNormalizer != null) {
+            return dnnNormalizer.apply(img, info, PAD_VALUE, order.needsSwap(TENSOR_ORDER),
+                    reuseBuffers ? BufferPool.get() : null);
+        }
+        long[] shape = info.getInputShape();
+        FloatBuffer tensor = reuseBuffers
+                ? BufferPool.get().floatBuffer("pre.tensor", shape)
+                : PreUtils.allocateTensor(shape);
+        call(img, info, order, tensor);
+        tensor.rewind();
+        return tensor;
+    }
 
-        // 5. expandDims
-        return expandDims(permuted);
+    public void call(Mat img, ResizeInfo info, FloatBuffer dst) {
+        call(img, info, ChannelOrder.RGB, dst);
     }
 
-    private float[][][] permute(Mat img) {
-        int height = img.rows();
-        int width = img.cols();
-        int channels = img.channels();
-        float[][][] output = new float[channels][height][width];
-        float[] buffer = new float[height * width * channels];
-        img.get(0, 0, buffer);
-
-        int index = 0;
-        for (int h = 0; h < height; h++) {
-            for (int w = 0; w < width; w++) {
-                for (int c = 0; c < channels; c++) {
-                    output[c][h][w] = buffer[index++];
-                }
-            }
+    /**
+     * 流程：1) resize (+ letterbox 补边) => 2) /255 + permute (+ R/B 交换) 写入 dst 当前 position
+     * R/B 交换与 resize 的先后不影响结果，放到归一化的遍历中完成，省去一次整图的 cvtColor
+     */
+    public void call(Mat img, ResizeInfo info, ChannelOrder order, FloatBuffer dst) {
+        if (img == null || img.empty()) {
+            throw new IllegalArgumentException("图像为空");
+        }
+        BufferPool pool = reuseBuffers ? BufferPool.get() : null;
+        boolean swapRB = order.needsSwap(TENSOR_ORDER);
+        if (dnnNormalizer != null) {
+            dnnNormalizer.apply(img, info, PAD_VALUE, swapRB, pool, dst);
+            return;
         }
-        return output;
-    }
 
-    private float[][][][] expandDims(float[][][] input) {
-        int c = input.length;
-        int h = input[0].length;
-        int w = input[0][0].length;
-        float[][][][] output = new float[1][c][h][w];
-        for (int ci = 0; ci < c; ci++) {
-            for (int hi = 0; hi < h; hi++) {
-                System.arraycopy(input[ci][hi], 0, output[0][ci][hi], 0, w);
+        // 1. resize
+        Mat resized = PreUtils.resize(img, info, PAD_VALUE, pool);
+        try {
+            // 2. /255 + permute => (C,H,W)，一次遍历写入 dst
+            normalizer.apply(PreUtils.readPixels(resized, pool), resized.rows(), resized.cols(), dst, swapRB);
+        } finally {
+            if (pool == null) {
+                resized.release();
             }
         }
-        return output;
     }
-}
\ No newline at end of file
+}
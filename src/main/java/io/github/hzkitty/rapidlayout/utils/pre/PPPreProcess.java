@@ -1,89 +1,157 @@
 package io.github.hzkitty.rapidlayout.utils.pre;
 
+import io.github.hzkitty.rapidlayout.entity.ChannelOrder;
+import io.github.hzkitty.rapidlayout.entity.PreProcessBackend;
+import io.github.hzkitty.rapidlayout.entity.ResizeInfo;
+import io.github.hzkitty.rapidlayout.utils.BufferPool;
 import org.opencv.core.*;
-import org.opencv.imgproc.Imgproc;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.ForkJoinPool;
 
 public class PPPreProcess {
+    // 模型输入张量的通道顺序，与 mean/std 一致
+    private static final ChannelOrder TENSOR_ORDER = ChannelOrder.RGB;
+
     private final Size imgSize;
     // 均值和标准差 (RGB 顺序)
-    private final Scalar mean = new Scalar(0.485, 0.456, 0.406);
-    private final Scalar std = new Scalar(0.229, 0.224, 0.225);
+    private final double[] mean = new double[]{0.485, 0.456, 0.406};
+    private final double[] std = new double[]{0.229, 0.224, 0.225};
     private final double scale = 1.0 / 255.0;  // 归一化因子
+    // > 0 时按 letterbox 等比缩放，短边只填充到 stride 的整数倍（动态输入尺寸的模型）；0 时直接拉伸到 imgSize
+    private final int stride;
+    // 补边颜色取各通道均值，归一化后约为 0，与 PaddleDetection 在归一化之后补 0 的效果一致；按张量通道顺序及其逆序各存一份
+    private final Scalar padValue;
+    private final Scalar swappedPadValue;
+    // uint8 -> (v*scale - mean)/std 的归一化内核
+    private final ChwNormalizer normalizer;
+    // OPENCV_DNN 后端的 blobFromImage 内核，JAVA 后端时为 null
+    private final DnnNormalizer dnnNormalizer;
+    // 是否复用线程私有的缓冲区（见 BufferPool）
+    private final boolean reuseBuffers;
 
     public PPPreProcess(Size imgSize) {
+        this(imgSize, false);
+    }
+
+    public PPPreProcess(Size imgSize, boolean reuseBuffers) {
+        this(imgSize, 0, reuseBuffers);
+    }
+
+    public PPPreProcess(Size imgSize, int stride, boolean reuseBuffers) {
+        this(imgSize, stride, reuseBuffers, PreProcessBackend.JAVA);
+    }
+
+    public PPPreProcess(Size imgSize, int stride, boolean reuseBuffers, PreProcessBackend backend) {
         this.imgSize = imgSize;
+        this.stride = stride;
+        this.padValue = new Scalar(Math.round(mean[0] * 255), Math.round(mean[1] * 255), Math.round(mean[2] * 255));
+        this.swappedPadValue = new Scalar(padValue.val[2], padValue.val[1], padValue.val[0]);
+        this.normalizer = new ChwNormalizer(scale, mean, std);
+        this.reuseBuffers = reuseBuffers;
+        this.dnnNormalizer = backend == PreProcessBackend.OPENCV_DNN
+                ? new DnnNormalizer(scale, mean, std)
+                : null;
     }
 
     /**
-     * 整体流程：1) resize  2) normalize 3) permute  4) expandDims
+     * 归一化 + permute 按行条带在 pool 中并行（仅 JAVA 后端），需在开始调用前设置
      *
-     * @param img OpenCV Mat 输入（BGR 格式）
-     * @return 四维 float 数组 [1, C, H, W]
+     * @param pool              线程池，为 null 时串行
+     * @param parallelThreshold 模型输入像素数 (H*W) 不小于该值时才并行
      */
-    public float[][][][] call(Mat img) {
-        if (img == null || img.empty()) {
-            throw new IllegalArgumentException("传入的图像为空");
-        }
-        // 1. 调整尺寸
-        Mat resized = resize(img);
+    public void setParallel(ForkJoinPool pool, int parallelThreshold) {
+        normalizer.setParallel(pool, parallelThreshold);
+    }
 
-        // 2. 归一化 ( (pixel*scale - mean)/std ), 这里的 mean/std 按 RGB 顺序
-        Mat normalized = normalize(resized);
+    /**
+     * 计算原图到模型输入的缩放信息，模型输入形状见 {@link ResizeInfo#getInputShape()}
+     */
+    public ResizeInfo resizeInfo(Size oriSize) {
+        int width = (int) imgSize.width;
+        int height = (int) imgSize.height;
+        return stride > 0
+                ? ResizeInfo.letterbox(oriSize, width, height, stride)
+                : ResizeInfo.stretch(oriSize, width, height);
+    }
 
-        // 3. 维度变换 (H, W, C) => (C, H, W)
-        float[][][] permuted = permute(normalized);
+    public FloatBuffer call(Mat img) {
+        return call(img, resizeInfo(img.size()));
+    }
 
-        // 4. 扩展维度 => [1, C, H, W]
-        return expandDims(permuted);
+    /**
+     * 输入为 RGB 顺序（与 LoadImage.call 的结果一致）
+     */
+    public FloatBuffer call(Mat img, ResizeInfo info) {
+        return call(img, info, ChannelOrder.RGB);
     }
 
-    private Mat resize(Mat img) {
-        Mat dst = new Mat();
-        Imgproc.resize(img, dst, imgSize);
-        return dst;
+    /**
+     * 前处理并写入 direct FloatBuffer，形状见 {@link ResizeInfo#getInputShape()}
+     * 复用缓冲区时返回当前线程池中的 buffer，下一次调用会覆盖其内容
+     *
+     * @param img   OpenCV Mat 输入
+     * @param info  缩放信息，见 {@link #resizeInfo(Size)}
+     * @param order img 的实际通道顺序，与模型需要的顺序不同时在归一化时一并交换
+     * @return 连续存储的 [1, C, H, W] 张量数据
+     */
+    public FloatBuffer call(Mat img, ResizeInfo info, ChannelOrder order) {
+        if (dnnNormalizer != null) {
+            boolean swapRB = order.needsSwap(TENSOR_ORDER);
+            return dnnNormalizer.apply(img, info, swapRB ? swappedPadValue : padValue, swapRB,
+                    reuseBuffers ? BufferPool.get() : null);
+        }
+        long[] shape = info.getInputShape();
+        FloatBuffer tensor = reuseBuffers
+                ? BufferPool.get().floatBuffer("pre.tensor", shape)
+                : PreUtils.allocateTensor(shape);
+        call(img, info, order, tensor);
+        tensor.rewind();
+        return tensor;
     }
 
-    private Mat normalize(Mat img) {
-        img.convertTo(img, CvType.CV_32FC3, scale);
-        Core.subtract(img, mean, img);
-        Core.divide(img, std, img);
-        return img;
+    public void call(Mat img, ResizeInfo info, FloatBuffer dst) {
+        call(img, info, ChannelOrder.RGB, dst);
     }
 
     /**
-     * 将图像从 (H,W,C) 转换为 (C,H,W) 的三维 float 数组
+     * 整体流程：1) resize (+ letterbox 补边)  2) 查表归一化 + permute (+ R/B 交换) 一次完成，写入 dst 当前 position
+     *
+     * @param img   OpenCV Mat 输入
+     * @param info  缩放信息
+     * @param order img 的实际通道顺序
+     * @param dst   目标 buffer，写入 C*H*W 个 float
      */
-    private float[][][] permute(Mat img) {
-        int h = img.rows();
-        int w = img.cols();
-        int c = img.channels();
-        float[][][] output = new float[c][h][w];
-
-        for (int row = 0; row < h; row++) {
-            for (int col = 0; col < w; col++) {
-                double[] pixel = img.get(row, col);  // size = c
-                for (int ch = 0; ch < c; ch++) {
-                    output[ch][row][col] = (float) pixel[ch];
-                }
+    public void call(Mat img, ResizeInfo info, ChannelOrder order, FloatBuffer dst) {
+        if (img == null || img.empty()) {
+            throw new IllegalArgumentException("传入的图像为空");
+        }
+        BufferPool pool = reuseBuffers ? BufferPool.get() : null;
+        boolean swapRB = order.needsSwap(TENSOR_ORDER);
+        // 补边在交换通道之前进行，颜色需按 img 的通道顺序
+        Scalar pad = swapRB ? swappedPadValue : padValue;
+        if (dnnNormalizer != null) {
+            dnnNormalizer.apply(img, info, pad, swapRB, pool, dst);
+            return;
+        }
+
+        // 1. 调整尺寸（仍为 8 位）
+        Mat resized = PreUtils.resize(img, info, pad, pool);
+        try {
+            // 2. 归一化 ( (pixel*scale - mean)/std ) 与维度变换 (H, W, C) => (C, H, W) 合并为一次遍历
+            //    这里的 mean/std 按 RGB 顺序
+            normalizePermute(resized, dst, swapRB, pool);
+        } finally {
+            if (pool == null) {
+                resized.release();
             }
         }
-        return output;
     }
 
     /**
-     * 扩展一个 batch 维度 => [1, C, H, W]
+     * 一次性读取 8 位像素，逐通道归一化后按 (C,H,W) 顺序写入 dst
      */
-    private float[][][][] expandDims(float[][][] permuted) {
-        int c = permuted.length;
-        int h = permuted[0].length;
-        int w = permuted[0][0].length;
-
-        float[][][][] out = new float[1][c][h][w];
-        for (int cc = 0; cc < c; cc++) {
-            for (int hh = 0; hh < h; hh++) {
-                System.arraycopy(permuted[cc][hh], 0, out[0][cc][hh], 0, w);
-            }
-        }
-        return out;
+    private void normalizePermute(Mat img, FloatBuffer dst, boolean swapRB, BufferPool pool) {
+        normalizer.apply(PreUtils.readPixels(img, pool), img.rows(), img.cols(), dst, swapRB);
     }
 }
@@ -0,0 +1,152 @@
+package io.github.hzkitty.rapidlayout.utils.pre;
+
+import io.github.hzkitty.rapidlayout.entity.ResizeInfo;
+import io.github.hzkitty.rapidlayout.utils.BufferPool;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+public class PreUtils {
+
+    /**
+     * 按形状分配一块连续的 direct FloatBuffer（native 字节序），可直接交给 OnnxTensor 使用而无需再拷贝
+     *
+     * @param shape 张量形状，如 [1, C, H, W]
+     * @return 容量为 shape 各维乘积的 FloatBuffer
+     */
+    public static FloatBuffer allocateTensor(long[] shape) {
+        return allocateTensorBytes(shape).asFloatBuffer();
+    }
+
+    /**
+     * 按 float 张量形状分配 direct ByteBuffer（native 字节序），可包装为 Mat 由 OpenCV 直接写入，
+     * 再通过 asFloatBuffer() 交给 OnnxTensor
+     *
+     * @param shape 张量形状，如 [1, C, H, W]
+     * @return 容量为 shape 各维乘积 * 4 字节的 ByteBuffer
+     */
+    public static ByteBuffer allocateTensorBytes(long[] shape) {
+        long size = 1;
+        for (long dim : shape) {
+            size *= dim;
+        }
+        if (size <= 0 || size > Integer.MAX_VALUE / Float.BYTES) {
+            throw new IllegalArgumentException("张量形状不合法: " + Arrays.toString(shape));
+        }
+        return ByteBuffer.allocateDirect((int) size * Float.BYTES)
+                .order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * 按 {@link ResizeInfo} 缩放图像，需要时再以 padValue 补边到模型输入尺寸
+     *
+     * @param img      输入图像
+     * @param info     缩放信息
+     * @param padValue 补边颜色
+     * @param pool     缓冲区池，为 null 时新分配
+     * @return 尺寸为 inputWidth x inputHeight 的图像，pool 为 null 时用完后由调用方 release
+     */
+    public static Mat resize(Mat img, ResizeInfo info, Scalar padValue, BufferPool pool) {
+        Mat resized = pool == null ? new Mat() : pool.mat("pre.resized");
+        Imgproc.resize(img, resized, new Size(info.getResizedWidth(), info.getResizedHeight()));
+        if (!info.isPadded()) {
+            return resized;
+        }
+        int top = info.getPadTop();
+        int left = info.getPadLeft();
+        int bottom = info.getInputHeight() - info.getResizedHeight() - top;
+        int right = info.getInputWidth() - info.getResizedWidth() - left;
+        Mat padded = pool == null ? new Mat() : pool.mat("pre.padded");
+        Core.copyMakeBorder(resized, padded, top, bottom, left, right, Core.BORDER_CONSTANT, padValue);
+        if (pool == null) {
+            resized.release();
+        }
+        return padded;
+    }
+
+    /**
+     * 一次性批量读取 8 位图像的全部像素（HWC 排列）
+     *
+     * @param img 8 位图像
+     * @return 像素字节
+     */
+    public static byte[] readPixels(Mat img) {
+        return readPixels(img, null);
+    }
+
+    /**
+     * 一次性批量读取 8 位图像的全部像素（HWC 排列），优先写入 pool 中按尺寸复用的数组
+     *
+     * @param img  8 位图像
+     * @param pool 缓冲区池，为 null 时新分配
+     * @return 像素字节
+     */
+    public static byte[] readPixels(Mat img, BufferPool pool) {
+        if (img.depth() != CvType.CV_8U) {
+            throw new IllegalArgumentException("仅支持 8 位图像, 当前 depth=" + img.depth());
+        }
+        int size = (int) img.total() * img.channels();
+        byte[] pixels = pool == null ? new byte[size] : pool.bytes("pre.pixels", size);
+        img.get(0, 0, pixels);
+        return pixels;
+    }
+
+    /**
+     * 构建逐通道的 uint8 -> float 查找表，lut[c][v] = (v * scale - mean[c]) / std[c]
+     * 计算顺序与 convertTo(CV_32F, scale) + Core.subtract + Core.divide 保持一致，结果逐位相同：
+     * convertTo 以 float 缩放，减均值为 float 运算，除以 Scalar 时 OpenCV 按 double 计算后再转回 float
+     *
+     * @param scale 缩放因子，如 1/255
+     * @param mean  逐通道均值，为 null 时不做减均值
+     * @param std   逐通道标准差，为 null 时不做除方差
+     * @param channels 通道数
+     * @return [channels][256] 查找表
+     */
+    public static float[][] buildLut(double scale, double[] mean, double[] std, int channels) {
+        float[][] lut = new float[channels][256];
+        for (int c = 0; c < channels; c++) {
+            float m = mean == null ? 0f : (float) mean[c];
+            for (int v = 0; v < 256; v++) {
+                float value = v * (float) scale;
+                if (mean != null) {
+                    value = value - m;
+                }
+                if (std != null) {
+                    value = (float) (value / std[c]);
+                }
+                lut[c][v] = value;
+            }
+        }
+        return lut;
+    }
+
+    /**
+     * 单次遍历完成 uint8 (H,W,C) -> 归一化 float (C,H,W)：逐通道查 {@link #buildLut} 构建的表后直接写入 dst
+     * 只处理 [rowStart, rowEnd) 行，按绝对下标写入以 base 为起点的 (C,H,W) 张量，不修改 dst 的 position
+     * 不同行区间写入的位置互不重叠，可由多个线程并行处理同一个 dst
+     *
+     * @param swapRB 为 true 时张量第 c 个通道取自源图像第 (C-1-c) 个通道，即在同一次遍历中完成 R/B 交换
+     */
+    public static void hwcToChw(byte[] src, int height, int width, int channels, float[][] lut, FloatBuffer dst,
+                                int base, int rowStart, int rowEnd, boolean swapRB) {
+        int area = height * width;
+        int start = rowStart * width;
+        int end = rowEnd * width;
+        for (int c = 0; c < channels; c++) {
+            float[] table = lut[c];
+            int offset = base + c * area;
+            int srcChannel = swapRB ? channels - 1 - c : c;
+            for (int i = start, idx = start * channels + srcChannel; i < end; i++, idx += channels) {
+                dst.put(offset + i, table[src[idx] & 0xFF]);
+            }
+        }
+    }
+}
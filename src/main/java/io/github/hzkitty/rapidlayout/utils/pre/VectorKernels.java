@@ -0,0 +1,36 @@
+package io.github.hzkitty.rapidlayout.utils.pre;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Vector API (SIMD) 预处理内核的 Java 8 占位实现
+ * JDK 17+ 上由 multi-release jar 中 META-INF/versions/17 下的同名类覆盖（源码见 src/main/java17）
+ */
+final class VectorKernels {
+
+    private VectorKernels() {
+    }
+
+    /**
+     * 当前运行环境是否可用 Vector API
+     */
+    static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * 预先构造 SIMD 内核参数，返回值传给 {@link #hwcToChw}
+     */
+    static Object prepare(float[] scale, float[] mean, float[] std) {
+        throw new UnsupportedOperationException("Vector API 不可用");
+    }
+
+    /**
+     * 只处理 [rowStart, rowEnd) 行，按绝对下标写入以 base 为起点的张量，不修改 dst 的 position
+     * swapRB 时张量第 c 个通道取自源图像第 (2-c) 个通道，params 需按源图像通道顺序构造
+     */
+    static void hwcToChw(byte[] src, int height, int width, Object params, FloatBuffer dst,
+                         int base, int rowStart, int rowEnd, boolean swapRB) {
+        throw new UnsupportedOperationException("Vector API 不可用");
+    }
+}
@@ -0,0 +1,143 @@
+package io.github.hzkitty.rapidlayout.utils.pre;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.FloatBuffer;
+
+/**
+ * 基于 jdk.incubator.vector 的 SIMD 预处理内核（JDK 17+，打包在 META-INF/versions/17）
+ * 运行时需要 --add-modules jdk.incubator.vector，否则加载失败并由 {@link ChwNormalizer} 回退到标量实现
+ */
+final class VectorKernels {
+
+    private static final int CHANNELS = 3;
+
+    private static final VectorSpecies<Float> F = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> I = IntVector.SPECIES_PREFERRED;
+    // 与 F 车道数相同的 byte 向量：一次读取 F.length() 个字节
+    private static final VectorSpecies<Byte> B = F.length() >= 8
+            ? VectorSpecies.of(byte.class, VectorShape.forBitSize(F.length() * Byte.SIZE))
+            : null;
+    // 按通道跨步 gather 的下标 {0, 3, 6, ...}
+    private static final int[] GATHER_INDEX = new int[F.length()];
+
+    private static final ThreadLocal<float[]> HWC_ROW = new ThreadLocal<>();
+    private static final ThreadLocal<float[]> PLANE_ROW = new ThreadLocal<>();
+
+    static {
+        for (int i = 0; i < GATHER_INDEX.length; i++) {
+            GATHER_INDEX[i] = i * CHANNELS;
+        }
+    }
+
+    private VectorKernels() {
+    }
+
+    /**
+     * 当前运行环境是否可用 Vector API（byte 向量最小 64 位，故要求 float 向量至少 8 个车道）
+     */
+    static boolean isSupported() {
+        return B != null;
+    }
+
+    /**
+     * 预先构造 SIMD 内核参数：交错行内第 j 个元素的通道为 j % 3，向量起点的相位只有 3 种，
+     * 按相位构造对应的 scale/mean/std 向量，返回值传给 {@link #hwcToChw}
+     */
+    static Object prepare(float[] scale, float[] mean, float[] std) {
+        FloatVector[][] params = new FloatVector[3][CHANNELS];
+        float[] tmp = new float[F.length()];
+        for (int phase = 0; phase < CHANNELS; phase++) {
+            params[0][phase] = phaseVector(scale, phase, tmp);
+            params[1][phase] = phaseVector(mean, phase, tmp);
+            params[2][phase] = phaseVector(std, phase, tmp);
+        }
+        return new Params(params[0], params[1], params[2], scale.clone(), mean.clone(), std.clone());
+    }
+
+    /**
+     * uint8 (H,W,3) -> ((v*scale - mean)/std) float (3,H,W)
+     * 按行处理：先对交错的整行做向量化的 uint8->float 与归一化，再按通道 gather 成平面行批量写入 dst
+     * 只处理 [rowStart, rowEnd) 行，按绝对下标写入以 base 为起点的张量，不修改 dst 的 position
+     * swapRB 时张量第 c 个通道取自源图像第 (2-c) 个通道，params 需按源图像通道顺序构造
+     */
+    static void hwcToChw(byte[] src, int height, int width, Object params, FloatBuffer dst,
+                         int base, int rowStart, int rowEnd, boolean swapRB) {
+        Params p = (Params) params;
+        int lanes = F.length();
+        int rowLen = width * CHANNELS;
+        int area = height * width;
+
+        // 行级临时数组按线程复用，稳态下不再分配
+        float[] hwcRow = scratch(HWC_ROW, rowLen);
+        float[] planeRow = scratch(PLANE_ROW, width);
+        int rowBound = B.loopBound(rowLen);
+        int planeBound = F.loopBound(width);
+        for (int y = rowStart; y < rowEnd; y++) {
+            int srcOffset = y * rowLen;
+            int j = 0;
+            for (; j < rowBound; j += lanes) {
+                int phase = j % CHANNELS;
+                IntVector iv = (IntVector) ByteVector.fromArray(B, src, srcOffset + j)
+                        .convertShape(VectorOperators.B2I, I, 0);
+                FloatVector fv = (FloatVector) iv.and(0xFF).convert(VectorOperators.I2F, 0);
+                fv.mul(p.scaleV[phase]).sub(p.meanV[phase]).div(p.stdV[phase]).intoArray(hwcRow, j);
+            }
+            for (; j < rowLen; j++) {
+                int c = j % CHANNELS;
+                hwcRow[j] = ((src[srcOffset + j] & 0xFF) * p.scale[c] - p.mean[c]) / p.std[c];
+            }
+
+            for (int c = 0; c < CHANNELS; c++) {
+                int srcChannel = swapRB ? CHANNELS - 1 - c : c;
+                int x = 0;
+                for (; x < planeBound; x += lanes) {
+                    FloatVector.fromArray(F, hwcRow, srcChannel + x * CHANNELS, GATHER_INDEX, 0).intoArray(planeRow, x);
+                }
+                for (; x < width; x++) {
+                    planeRow[x] = hwcRow[x * CHANNELS + srcChannel];
+                }
+                dst.put(base + c * area + y * width, planeRow, 0, width);
+            }
+        }
+    }
+
+    private static float[] scratch(ThreadLocal<float[]> local, int size) {
+        float[] arr = local.get();
+        if (arr == null || arr.length < size) {
+            arr = new float[size];
+            local.set(arr);
+        }
+        return arr;
+    }
+
+    private static FloatVector phaseVector(float[] values, int phase, float[] tmp) {
+        for (int k = 0; k < tmp.length; k++) {
+            tmp[k] = values[(phase + k) % CHANNELS];
+        }
+        return FloatVector.fromArray(F, tmp, 0);
+    }
+
+    private static final class Params {
+        final FloatVector[] scaleV;
+        final FloatVector[] meanV;
+        final FloatVector[] stdV;
+        final float[] scale;
+        final float[] mean;
+        final float[] std;
+
+        Params(FloatVector[] scaleV, FloatVector[] meanV, FloatVector[] stdV, float[] scale, float[] mean, float[] std) {
+            this.scaleV = scaleV;
+            this.meanV = meanV;
+            this.stdV = stdV;
+            this.scale = scale;
+            this.mean = mean;
+            this.std = std;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+import io.github.hzkitty.rapidlayout.RapidLayout;
+import io.github.hzkitty.rapidlayout.entity.LayoutConfig;
+import io.github.hzkitty.rapidlayout.entity.LayoutModelType;
+import io.github.hzkitty.rapidlayout.utils.OpencvLoader;
+import io.github.hzkitty.rapidlayout.utils.post.YOLOv8PostProcess;
+import io.github.hzkitty.rapidlayout.utils.pre.DocLayoutPreProcess;
+import io.github.hzkitty.rapidlayout.utils.pre.PPPreProcess;
+import io.github.hzkitty.rapidlayout.utils.pre.YOLOv8PreProcess;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 复用缓冲区模式下，预热后每张图片分配的堆内存需低于预算
+ */
+public class AllocationTest {
+
+    // 单张图片允许的堆分配字节数，远小于任何一个输入/输出张量
+    private static final long BUDGET_PER_IMAGE = 64 * 1024;
+    private static final int WARMUP = 5;
+    private static final int ROUNDS = 20;
+
+    @BeforeAll
+    public static void loadOpencv() {
+        OpencvLoader.loadOpencvLib();
+    }
+
+    private static Mat readImage() {
+        return Imgcodecs.imread(new File("src/test/resources/layout.png").getAbsolutePath());
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long bytesPerImage(Runnable task) {
+        for (int i = 0; i < WARMUP; i++) {
+            task.run();
+        }
+        long start = allocatedBytes();
+        for (int i = 0; i < ROUNDS; i++) {
+            task.run();
+        }
+        return (allocatedBytes() - start) / ROUNDS;
+    }
+
+    @Test
+    public void testPreProcessSteadyState() {
+        Mat img = readImage();
+        PPPreProcess pp = new PPPreProcess(new Size(608, 800), true);
+        YOLOv8PreProcess yolo = new YOLOv8PreProcess(640, 640, true);
+        DocLayoutPreProcess doc = new DocLayoutPreProcess(1024, 1024, true);
+
+        long ppBytes = bytesPerImage(() -> pp.call(img));
+        long yoloBytes = bytesPerImage(() -> yolo.call(img));
+        long docBytes = bytesPerImage(() -> doc.call(img));
+        System.out.printf("preprocess bytes/image: pp=%d, yolo=%d, doclayout=%d%n", ppBytes, yoloBytes, docBytes);
+        Assertions.assertTrue(ppBytes < BUDGET_PER_IMAGE, "pp: " + ppBytes);
+        Assertions.assertTrue(yoloBytes < BUDGET_PER_IMAGE, "yolo: " + yoloBytes);
+        Assertions.assertTrue(docBytes < BUDGET_PER_IMAGE, "doclayout: " + docBytes);
+
+        // 对照：不复用时每张图片至少分配一个输入张量大小的内存
+        long plainBytes = bytesPerImage(() -> new DocLayoutPreProcess(1024, 1024).call(img));
+        Assertions.assertTrue(plainBytes > 3 * 1024 * 1024, "plain: " + plainBytes);
+    }
+
+    @Test
+    public void testYoloPostProcessSteadyState() {
+        // 合成的 [1, 4 + 9, 8400] 输出，其中少量框超过阈值
+        int numClasses = 9;
+        int anchors = 8400;
+        float[][][][] output = new float[1][1][4 + numClasses][anchors];
+        Random random = new Random(0);
+        for (int i = 0; i < anchors; i++) {
+            output[0][0][0][i] = random.nextFloat() * 640;
+            output[0][0][1][i] = random.nextFloat() * 640;
+            output[0][0][2][i] = 10 + random.nextFloat() * 50;
+            output[0][0][3][i] = 10 + random.nextFloat() * 50;
+            output[0][0][4 + i % numClasses][i] = i % 400 == 0 ? 0.9f : 0.01f;
+        }
+        YOLOv8PostProcess post = new YOLOv8PostProcess(Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h", "i"),
+                0.5f, 0.5f, true);
+        Size oriShape = new Size(1240, 1754);
+        int[] inputShape = new int[]{640, 640};
+
+        long bytes = bytesPerImage(() -> post.call(output, oriShape, inputShape));
+        System.out.printf("yolo postprocess bytes/image: %d%n", bytes);
+        Assertions.assertTrue(bytes < BUDGET_PER_IMAGE, "yolo postprocess: " + bytes);
+    }
+
+    @Test
+    public void testRunSteadyState() throws Exception {
+        File modelFile = new File("src/test/resources/models/yolov8n_layout_paper.onnx");
+        Assumptions.assumeTrue(modelFile.exists(), "模型文件不存在: " + modelFile);
+        LayoutConfig config = new LayoutConfig();
+        config.setModelType(LayoutModelType.YOLOV8N_LAYOUT_PAPER);
+        config.setModelPath(modelFile.getAbsolutePath());
+        config.setReuseBuffers(true);
+        RapidLayout layout = RapidLayout.create(config);
+        Mat img = readImage();
+
+        long bytes = bytesPerImage(() -> {
+            try {
+                layout.run(img);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        System.out.printf("run bytes/image: %d%n", bytes);
+        Assertions.assertTrue(bytes < BUDGET_PER_IMAGE, "run: " + bytes);
+    }
+}
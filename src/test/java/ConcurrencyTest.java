@@ -0,0 +1,134 @@
+import io.github.hzkitty.rapidlayout.RapidLayout;
+import io.github.hzkitty.rapidlayout.entity.LayoutConfig;
+import io.github.hzkitty.rapidlayout.entity.LayoutResult;
+import io.github.hzkitty.rapidlayout.entity.OrtInferConfig;
+import io.github.hzkitty.rapidlayout.utils.AutoTuner;
+import io.github.hzkitty.rapidlayout.utils.OrtInferSession;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfByte;
+import org.opencv.core.Size;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 多个线程共享一个 RapidLayout 实例并发推理，结果需与串行推理完全一致
+ */
+public class ConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 20;
+
+    @Test
+    public void testSharedEngine() throws Exception {
+        testSharedEngine(new LayoutConfig());
+    }
+
+    @Test
+    public void testSharedEngineReuseBuffers() throws Exception {
+        LayoutConfig config = new LayoutConfig();
+        config.reuseBuffers = true;
+        testSharedEngine(config);
+    }
+
+    @Test
+    public void testSharedEngineBindIo() throws Exception {
+        LayoutConfig config = new LayoutConfig();
+        config.bindIo = true;
+        testSharedEngine(config);
+    }
+
+    @Test
+    public void testSessionPool() throws Exception {
+        LayoutConfig config = new LayoutConfig();
+        config.sessionPoolSize = 3;
+        config.intraOpNumThreads = 2;
+        testSharedEngine(config);
+    }
+
+    @Test
+    public void testBindIoThreadChurn() throws Exception {
+        OrtInferConfig config = new OrtInferConfig();
+        config.setModelPath(new LayoutConfig().modelPath);
+        try (OrtInferSession session = new OrtInferSession(config)) {
+            long[] shape = AutoTuner.inputShape(session.getInputShape(), 608, 800);
+            // 每个线程推理一次后退出，已结束线程的绑定应在下一个线程创建绑定时关闭
+            for (int i = 0; i < THREADS; i++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        session.boundInput(shape);
+                        session.runBound(shape);
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                thread.start();
+                thread.join();
+                Assertions.assertEquals(1, session.getBoundThreadCount());
+            }
+        }
+    }
+
+    private void testSharedEngine(LayoutConfig config) throws Exception {
+        RapidLayout rapidLayout = RapidLayout.create(config);
+        // 不同尺寸、方向的输入，使各线程的缩放信息互不相同
+        Mat page = Imgcodecs.imread(new File("src/test/resources/layout.png").getAbsolutePath());
+        List<byte[]> inputs = new ArrayList<>();
+        for (double scale : new double[]{1.0, 0.7, 1.3}) {
+            Mat resized = new Mat();
+            Imgproc.resize(page, resized, new Size(page.cols() * scale, page.rows() * scale));
+            inputs.add(encode(resized));
+            Mat rotated = new Mat();
+            Core.rotate(resized, rotated, Core.ROTATE_90_CLOCKWISE);
+            inputs.add(encode(rotated));
+        }
+        List<LayoutResult> expected = new ArrayList<>();
+        for (byte[] input : inputs) {
+            expected.add(rapidLayout.run(input));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    for (int r = 0; r < ROUNDS; r++) {
+                        int i = (offset + r) % inputs.size();
+                        assertSame(expected.get(i), rapidLayout.run(inputs.get(i)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static byte[] encode(Mat img) {
+        MatOfByte buf = new MatOfByte();
+        Imgcodecs.imencode(".png", img, buf);
+        return buf.toArray();
+    }
+
+    private static void assertSame(LayoutResult expected, LayoutResult actual) {
+        Assertions.assertEquals(expected.getClassNames(), actual.getClassNames());
+        Assertions.assertEquals(expected.getScores(), actual.getScores());
+        Assertions.assertEquals(expected.getBoxes().size(), actual.getBoxes().size());
+        for (int i = 0; i < expected.getBoxes().size(); i++) {
+            Assertions.assertArrayEquals(expected.getBoxes().get(i), actual.getBoxes().get(i));
+        }
+    }
+}
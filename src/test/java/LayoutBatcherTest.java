@@ -0,0 +1,64 @@
+import io.github.hzkitty.rapidlayout.LayoutBatcher;
+import io.github.hzkitty.rapidlayout.RapidLayout;
+import io.github.hzkitty.rapidlayout.entity.LayoutResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class LayoutBatcherTest {
+
+    @Test
+    public void testConcurrentSubmit() throws Exception {
+        RapidLayout rapidLayout = RapidLayout.create();
+        byte[] bytes = Files.readAllBytes(new File("src/test/resources/layout.png").toPath());
+        LayoutResult expected = rapidLayout.run(bytes);
+
+        try (LayoutBatcher batcher = new LayoutBatcher(rapidLayout, 4, 5000)) {
+            List<CompletableFuture<LayoutResult>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                futures.add(batcher.submit(bytes));
+            }
+            // 无法解码的请求只让自身失败
+            CompletableFuture<LayoutResult> broken = batcher.submit(new byte[]{1, 2, 3});
+            for (CompletableFuture<LayoutResult> future : futures) {
+                LayoutResult result = future.get();
+                Assertions.assertEquals(expected.getBoxes().size(), result.getBoxes().size());
+                Assertions.assertEquals(expected.getClassNames(), result.getClassNames());
+            }
+            Assertions.assertThrows(ExecutionException.class, broken::get);
+
+            long[] histogram = batcher.getBatchSizeHistogram();
+            Assertions.assertEquals(5, histogram.length);
+            long images = 0;
+            for (int size = 1; size < histogram.length; size++) {
+                images += size * histogram[size];
+            }
+            Assertions.assertTrue(images >= 11);
+            Assertions.assertEquals(0, batcher.getQueueDepth());
+        }
+    }
+
+    @Test
+    public void testErrorFailsBatchNotScheduler() throws Exception {
+        RapidLayout failing = new RapidLayout() {
+            @Override
+            public List<LayoutResult> runBatch(List<?> images) {
+                throw new OutOfMemoryError("test");
+            }
+        };
+        try (LayoutBatcher batcher = new LayoutBatcher(failing, 4, 1000)) {
+            // Error 只让该批请求失败，调度线程继续处理之后的请求
+            for (int round = 0; round < 2; round++) {
+                CompletableFuture<LayoutResult> future = batcher.submit(new byte[]{1, 2, 3});
+                ExecutionException e = Assertions.assertThrows(ExecutionException.class, future::get);
+                Assertions.assertInstanceOf(OutOfMemoryError.class, e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+import io.github.hzkitty.rapidlayout.LayoutModelRegistry;
+import io.github.hzkitty.rapidlayout.entity.LayoutConfig;
+import io.github.hzkitty.rapidlayout.entity.LayoutModelType;
+import io.github.hzkitty.rapidlayout.entity.LayoutResult;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class LayoutModelRegistryTest {
+
+    @Test
+    public void testConcurrentFirstRequestsLoadOnce() throws Exception {
+        byte[] bytes = Files.readAllBytes(new File("src/test/resources/layout.png").toPath());
+        try (LayoutModelRegistry registry = new LayoutModelRegistry(0)) {
+            registry.register(new LayoutConfig());
+            Assertions.assertTrue(registry.getLoadedModels().isEmpty());
+
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<LayoutResult>> futures = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    futures.add(executor.submit(() -> registry.run(LayoutModelType.PP_LAYOUT_CDLA, bytes)));
+                }
+                for (Future<LayoutResult> future : futures) {
+                    Assertions.assertFalse(future.get().getBoxes().isEmpty());
+                }
+            } finally {
+                executor.shutdown();
+            }
+            Assertions.assertEquals(Collections.singletonList(LayoutModelType.PP_LAYOUT_CDLA), registry.getLoadedModels());
+            long footprint = registry.getFootprintBytes(LayoutModelType.PP_LAYOUT_CDLA);
+            Assertions.assertTrue(footprint > 0);
+            Assertions.assertEquals(footprint, registry.getUsedBytes());
+        }
+    }
+
+    @Test
+    public void testEvictWhenOverBudget() throws Exception {
+        byte[] bytes = Files.readAllBytes(new File("src/test/resources/layout.png").toPath());
+        // 预算小于任何模型，请求结束后立即被关闭，下次请求重新加载
+        try (LayoutModelRegistry registry = new LayoutModelRegistry(1)) {
+            registry.register(new LayoutConfig());
+            LayoutResult first = registry.run(LayoutModelType.PP_LAYOUT_CDLA, bytes);
+            Assertions.assertTrue(registry.getLoadedModels().isEmpty());
+            Assertions.assertEquals(0, registry.getUsedBytes());
+            LayoutResult second = registry.run(LayoutModelType.PP_LAYOUT_CDLA, bytes);
+            Assertions.assertEquals(first.getClassNames(), second.getClassNames());
+        }
+    }
+
+    @Test
+    public void testUnregistered() {
+        try (LayoutModelRegistry registry = new LayoutModelRegistry(0)) {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> registry.run(LayoutModelType.DOCLAYOUT_D4LA, new byte[0]));
+        }
+    }
+}
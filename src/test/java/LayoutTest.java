@@ -1,6 +1,12 @@
 
 import io.github.hzkitty.rapidlayout.RapidLayout;
+import io.github.hzkitty.rapidlayout.entity.LayoutConfig;
+import io.github.hzkitty.rapidlayout.entity.LayoutModelType;
 import io.github.hzkitty.rapidlayout.entity.LayoutResult;
+import io.github.hzkitty.rapidlayout.entity.ModelPrecision;
+import io.github.hzkitty.rapidlayout.entity.TuneGoal;
+import io.github.hzkitty.rapidlayout.entity.WarmupTiming;
+import io.github.hzkitty.rapidlayout.utils.ModelVariants;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.opencv.core.Mat;
@@ -10,6 +16,11 @@ import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class LayoutTest {
 
@@ -47,6 +58,163 @@ public class LayoutTest {
         System.out.println(layoutResult);
     }
 
+    @Test
+    public void testBatch() throws Exception {
+        RapidLayout rapidLayout = RapidLayout.create();
+        File file = new File("src/test/resources/layout.png");
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        LayoutResult single = rapidLayout.run(bytes);
+        List<LayoutResult> results = rapidLayout.runBatch(Arrays.asList(file.getAbsolutePath(), bytes, ImageIO.read(file)));
+        Assertions.assertEquals(3, results.size());
+        for (LayoutResult result : results) {
+            Assertions.assertEquals(single.getBoxes().size(), result.getBoxes().size());
+            Assertions.assertEquals(single.getClassNames(), result.getClassNames());
+        }
+    }
+
+    @Test
+    public void testPages() throws Exception {
+        RapidLayout rapidLayout = RapidLayout.create();
+        Mat page = Imgcodecs.imread(new File("src/test/resources/layout.png").getAbsolutePath());
+        Path file = Files.createTempFile("layout", ".tiff");
+        try {
+            Imgcodecs.imwritemulti(file.toString(), Arrays.asList(page, page));
+            Iterator<LayoutResult> results = rapidLayout.runPages(file);
+            int count = 0;
+            while (results.hasNext()) {
+                Assertions.assertFalse(results.next().getBoxes().isEmpty());
+                count++;
+            }
+            Assertions.assertEquals(2, count);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testAutoTune() throws Exception {
+        Path cacheDir = Files.createTempDirectory("tune");
+        try {
+            LayoutConfig config = new LayoutConfig();
+            config.autoTune = TuneGoal.LATENCY;
+            config.autoTuneCacheDir = cacheDir.toString();
+            RapidLayout rapidLayout = RapidLayout.create(config);
+            File[] cached = cacheDir.toFile().listFiles();
+            Assertions.assertNotNull(cached);
+            Assertions.assertEquals(1, cached.length);
+            Assertions.assertFalse(rapidLayout.run(new File("src/test/resources/layout.png").getAbsolutePath()).getBoxes().isEmpty());
+            // 第二次启动直接读取缓存
+            long modified = cached[0].lastModified();
+            RapidLayout.create(config);
+            Assertions.assertEquals(modified, cached[0].lastModified());
+            Files.delete(cached[0].toPath());
+        } finally {
+            Files.delete(cacheDir);
+        }
+    }
+
+    @Test
+    public void testPrecision() throws Exception {
+        // PP 模型没有 INT8 变体，INT8 / AUTO 都回退到 FP32
+        String image = new File("src/test/resources/layout.png").getAbsolutePath();
+        LayoutResult expected = RapidLayout.create().run(image);
+        for (ModelPrecision precision : new ModelPrecision[]{ModelPrecision.INT8, ModelPrecision.AUTO}) {
+            LayoutConfig config = new LayoutConfig();
+            config.precision = precision;
+            Assertions.assertEquals(expected.getClassNames(), RapidLayout.create(config).run(image).getClassNames());
+        }
+        Assertions.assertEquals("models/doclayout_int8.onnx", ModelVariants.int8Path("models/doclayout.onnx"));
+        Assertions.assertEquals("models/doclayout.onnx",
+                ModelVariants.select("models/doclayout.onnx", LayoutModelType.DOCLAYOUT_DOCSTRUCTBENCH, ModelPrecision.FP32, false));
+        Assertions.assertThrows(IllegalArgumentException.class, () ->
+                ModelVariants.select("models/missing.onnx", LayoutModelType.DOCLAYOUT_DOCSTRUCTBENCH, ModelPrecision.INT8, false));
+    }
+
+    @Test
+    public void testWarmup() throws Exception {
+        LayoutConfig config = new LayoutConfig();
+        config.warmupRuns = 3;
+        config.warmupBatchSizes = new int[]{1, 2};
+        RapidLayout rapidLayout = RapidLayout.create(config);
+        Assertions.assertTrue(rapidLayout.isReady());
+        List<WarmupTiming> timings = rapidLayout.getWarmupTimings();
+        Assertions.assertEquals(2, timings.size());
+        Assertions.assertEquals(2, timings.get(1).getBatchSize());
+        Assertions.assertEquals(3, timings.get(0).getElapseMillis().length);
+        System.out.println(timings);
+
+        config.asyncWarmup = true;
+        RapidLayout async = RapidLayout.create(config);
+        Assertions.assertTrue(async.awaitReady(60, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, async.getWarmupTimings().size());
+    }
+
+    @Test
+    public void testWarmupFailureClosesSession() throws Exception {
+        LayoutConfig config = new LayoutConfig();
+        config.warmupRuns = 1;
+        // 无效的批次大小使同步预热抛出异常
+        config.warmupBatchSizes = new int[]{-1};
+        config.sessionPoolSize = 2;
+        int reapers = reaperThreads();
+        Assertions.assertThrows(RuntimeException.class, () -> RapidLayout.create(config));
+        // 会话已关闭，会话池的回收线程随之退出
+        for (int i = 0; i < 50 && reaperThreads() > reapers; i++) {
+            Thread.sleep(100);
+        }
+        Assertions.assertEquals(reapers, reaperThreads());
+    }
+
+    @Test
+    public void testAsyncWarmupFailureNotReady() throws Exception {
+        LayoutConfig config = new LayoutConfig();
+        config.warmupRuns = 1;
+        // 无效的批次大小使后台预热抛出异常
+        config.warmupBatchSizes = new int[]{-1};
+        config.asyncWarmup = true;
+        try (RapidLayout rapidLayout = RapidLayout.create(config)) {
+            Assertions.assertThrows(IllegalStateException.class, () -> rapidLayout.awaitReady(60, TimeUnit.SECONDS));
+            Assertions.assertFalse(rapidLayout.isReady());
+            Assertions.assertNotNull(rapidLayout.getWarmupError());
+        }
+    }
+
+    private static int reaperThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("ort-session-reaper".equals(thread.getName()) && thread.isAlive()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testOptimizedModelCache() throws Exception {
+        Path cacheDir = Files.createTempDirectory("ort");
+        String image = new File("src/test/resources/layout.png").getAbsolutePath();
+        try {
+            LayoutConfig config = new LayoutConfig();
+            config.optimizedModelCacheDir = cacheDir.toString();
+            LayoutResult expected = RapidLayout.create(config).run(image);
+            File[] cached = cacheDir.toFile().listFiles();
+            Assertions.assertNotNull(cached);
+            Assertions.assertEquals(1, cached.length);
+            Assertions.assertTrue(cached[0].getName().endsWith(".ort"));
+            // 第二次启动直接加载优化后的模型，结果不变
+            long modified = cached[0].lastModified();
+            LayoutResult actual = RapidLayout.create(config).run(image);
+            Assertions.assertEquals(modified, cached[0].lastModified());
+            Assertions.assertEquals(expected.getClassNames(), actual.getClassNames());
+            for (int i = 0; i < expected.getBoxes().size(); i++) {
+                Assertions.assertArrayEquals(expected.getBoxes().get(i), actual.getBoxes().get(i), 1e-2f);
+            }
+            Files.delete(cached[0].toPath());
+        } finally {
+            Files.delete(cacheDir);
+        }
+    }
+
     @Test
     public void testMat() throws Exception {
         RapidLayout rapidLayout = RapidLayout.create();
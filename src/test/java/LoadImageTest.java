@@ -0,0 +1,171 @@
+import io.github.hzkitty.rapidlayout.entity.ChannelOrder;
+import io.github.hzkitty.rapidlayout.entity.LoadedImage;
+import io.github.hzkitty.rapidlayout.utils.ImageHeader;
+import io.github.hzkitty.rapidlayout.utils.LoadImage;
+import io.github.hzkitty.rapidlayout.utils.OpencvLoader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.*;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class LoadImageTest {
+
+    @BeforeAll
+    public static void loadOpencv() {
+        OpencvLoader.loadOpencvLib();
+    }
+
+    private static byte[] encode(String ext, int width, int height) {
+        Mat img = new Mat(height, width, CvType.CV_8UC3);
+        Core.randu(img, 0, 256);
+        MatOfByte buf = new MatOfByte();
+        Imgcodecs.imencode(ext, img, buf);
+        return buf.toArray();
+    }
+
+    @Test
+    public void testProbeHeader() throws Exception {
+        for (String ext : new String[]{".png", ".jpg", ".tiff"}) {
+            Size size = ImageHeader.probe(encode(ext, 1237, 851));
+            Assertions.assertNotNull(size, ext);
+            Assertions.assertEquals(1237, (int) size.width, ext);
+            Assertions.assertEquals(851, (int) size.height, ext);
+        }
+        Size png = ImageHeader.probe(new File("src/test/resources/layout.png").toPath());
+        Mat full = Imgcodecs.imread("src/test/resources/layout.png");
+        Assertions.assertEquals(full.size(), png);
+
+        Assertions.assertNull(ImageHeader.probe(new byte[]{'G', 'I', 'F', '8', '9', 'a', 0, 0}));
+        Assertions.assertNull(ImageHeader.probe(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 0x40, 0, 0}));
+    }
+
+    @Test
+    public void testReducedDecodeKeepsOriginalSize() throws Exception {
+        LoadImage loadImage = new LoadImage();
+        byte[] data = encode(".jpg", 4001, 3003);
+        // 所需尺寸约为原图的 0.22 倍，最大可缩小到 1/4
+        LoadedImage loaded = loadImage.load(data, ori -> new Size(ori.width * 0.22, ori.height * 0.22));
+        Assertions.assertTrue(loaded.isReduced());
+        Assertions.assertEquals(new Size(4001, 3003), loaded.getOriSize());
+        Assertions.assertEquals(1000, loaded.getMat().cols(), 1);
+        Assertions.assertEquals(750, loaded.getMat().rows(), 1);
+
+        // 所需尺寸超过原图的一半时不缩小
+        LoadedImage full = loadImage.load(data, ori -> new Size(ori.width * 0.52, ori.height * 0.52));
+        Assertions.assertFalse(full.isReduced());
+        Assertions.assertEquals(new Size(4001, 3003), full.getMat().size());
+
+        // 非 JPEG 不缩小解码
+        LoadedImage png = loadImage.load(encode(".png", 2000, 1000), ori -> new Size(100, 100));
+        Assertions.assertFalse(png.isReduced());
+        Assertions.assertEquals(new Size(2000, 1000), png.getOriSize());
+
+        Path file = Files.createTempFile("reduced", ".jpg");
+        try {
+            Files.write(file, encode(".jpg", 3000, 2000));
+            LoadedImage fromFile = loadImage.load(file, ori -> new Size(ori.width * 0.1, ori.height * 0.1));
+            Assertions.assertEquals(new Size(375, 250), fromFile.getMat().size());
+            Assertions.assertEquals(new Size(3000, 2000), fromFile.getOriSize());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testByteBufferAndMappedInputMatchByteArray() throws Exception {
+        LoadImage loadImage = new LoadImage();
+        byte[] data = encode(".png", 640, 480);
+        Mat expected = loadImage.load(data).getMat();
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 16);
+        direct.position(16);
+        direct.put(data);
+        direct.position(16);
+        // 堆缓冲区带数组偏移
+        ByteBuffer heap = ByteBuffer.allocate(data.length + 8);
+        heap.position(8);
+        heap.put(data);
+        heap.position(8);
+        for (ByteBuffer buffer : new ByteBuffer[]{direct, heap.slice(), heap.asReadOnlyBuffer()}) {
+            LoadedImage loaded = loadImage.load(buffer);
+            Assertions.assertEquals(ChannelOrder.BGR, loaded.getChannelOrder());
+            Assertions.assertEquals(0, Core.norm(expected, loaded.getMat(), Core.NORM_INF));
+        }
+        Assertions.assertEquals(16, direct.position());
+
+        Path file = Files.createTempFile("mapped", ".png");
+        try {
+            Files.write(file, data);
+            Mat mapped = new LoadImage(true).load(file).getMat();
+            Assertions.assertEquals(0, Core.norm(expected, mapped, Core.NORM_INF));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testLoadTiffPages() throws Exception {
+        LoadImage loadImage = new LoadImage();
+        List<Mat> pages = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            pages.add(new Mat(120 + i * 10, 90, CvType.CV_8UC3, new Scalar(i * 40, 10, 200)));
+        }
+        Path file = Files.createTempFile("pages", ".tiff");
+        try {
+            Imgcodecs.imwritemulti(file.toString(), pages);
+            Assertions.assertEquals(3, loadImage.pageCount(file));
+            for (int i = 0; i < 3; i++) {
+                try (LoadedImage page = loadImage.loadPage(file, i)) {
+                    Assertions.assertEquals(ChannelOrder.BGR, page.getChannelOrder());
+                    Assertions.assertEquals(pages.get(i).size(), page.getMat().size());
+                    Assertions.assertEquals(0, Core.norm(pages.get(i), page.getMat(), Core.NORM_INF));
+                }
+            }
+            Assertions.assertThrows(Exception.class, () -> loadImage.loadPage(file, 3));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testBufferedImageConvertersMatchGraphicsRedraw() throws Exception {
+        LoadImage loadImage = new LoadImage();
+        Random random = new Random(7);
+        int[] types = {BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_INT_RGB,
+                BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_INT_ARGB};
+        for (int type : types) {
+            BufferedImage bi = new BufferedImage(97, 61, type);
+            for (int y = 0; y < bi.getHeight(); y++) {
+                for (int x = 0; x < bi.getWidth(); x++) {
+                    bi.setRGB(x, y, random.nextInt());
+                }
+            }
+            // 整图以及共享数据的子图像
+            for (BufferedImage img : new BufferedImage[]{bi, bi.getSubimage(5, 3, 80, 50)}) {
+                BufferedImage expected = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+                Graphics2D g = expected.createGraphics();
+                g.drawImage(img, 0, 0, null);
+                g.dispose();
+                byte[] expectedBytes = ((DataBufferByte) expected.getRaster().getDataBuffer()).getData();
+
+                Mat mat = loadImage.load(img).getMat();
+                Assertions.assertEquals(CvType.CV_8UC3, mat.type());
+                byte[] actual = new byte[(int) mat.total() * 3];
+                mat.get(0, 0, actual);
+                Assertions.assertArrayEquals(expectedBytes, actual, "type " + type);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+import io.github.hzkitty.rapidlayout.VisLayout;
+import io.github.hzkitty.rapidlayout.entity.LoadedImage;
+import io.github.hzkitty.rapidlayout.entity.PreProcessBackend;
+import io.github.hzkitty.rapidlayout.entity.ResizeInfo;
+import io.github.hzkitty.rapidlayout.utils.LoadImage;
+import io.github.hzkitty.rapidlayout.utils.OpencvLoader;
+import io.github.hzkitty.rapidlayout.utils.pre.DocLayoutPreProcess;
+import io.github.hzkitty.rapidlayout.utils.pre.PPPreProcess;
+import io.github.hzkitty.rapidlayout.utils.pre.YOLOv8PreProcess;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.*;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 不复用缓冲区时连续处理大量图片，进程 RSS 需保持平稳：中间 Mat 都应及时 release，而不是等 GC 回收
+ * 默认只跑少量图片作为冒烟检查，长时间浸泡用 -Dsoak.images=10000 等调大
+ */
+public class NativeMemorySoakTest {
+
+    private static final int IMAGES = Integer.getInteger("soak.images", 300);
+    private static final int WARMUP = Math.min(1000, IMAGES / 10);
+    // 预热后允许的 RSS 增长
+    private static final long MAX_GROWTH = 64L * 1024 * 1024;
+
+    @BeforeAll
+    public static void loadOpencv() {
+        OpencvLoader.loadOpencvLib();
+    }
+
+    private static long rss() throws IOException {
+        for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D+", "")) * 1024;
+            }
+        }
+        throw new IllegalStateException("VmRSS 不存在");
+    }
+
+    @Test
+    public void testRssStaysFlat() throws Exception {
+        Path status = Paths.get("/proc/self/status");
+        Assumptions.assumeTrue(Files.isReadable(status), "需要 Linux /proc");
+
+        Mat source = new Mat(600, 800, CvType.CV_8UC3);
+        Core.randu(source, 0, 256);
+        MatOfByte encoded = new MatOfByte();
+        Imgcodecs.imencode(".jpg", source, encoded);
+        byte[] jpg = encoded.toArray();
+        Mat rgba = new Mat(480, 360, CvType.CV_8UC4);
+        Core.randu(rgba, 0, 256);
+        BufferedImage abgr = new BufferedImage(360, 480, BufferedImage.TYPE_4BYTE_ABGR);
+
+        LoadImage loadImage = new LoadImage();
+        YOLOv8PreProcess yolo = new YOLOv8PreProcess(640, 640, 32, false);
+        DocLayoutPreProcess doc = new DocLayoutPreProcess(1024, 1024, 32, false, PreProcessBackend.OPENCV_DNN);
+        PPPreProcess pp = new PPPreProcess(new Size(608, 800), 0, false, PreProcessBackend.JAVA);
+        Object[] inputs = {jpg, rgba, abgr};
+        List<float[]> boxes = Collections.singletonList(new float[]{10, 20, 200, 300});
+        List<Float> scores = Collections.singletonList(0.9f);
+        List<String> names = Collections.singletonList("text");
+
+        long baseline = 0;
+        for (int i = 0; i < IMAGES; i++) {
+            if (i == WARMUP) {
+                baseline = rss();
+            }
+            // 输入按 i / 3 轮换、预处理按 i % 3 轮换，每种输入都会经过三种预处理
+            try (LoadedImage loaded = loadImage.load(inputs[(i / 3) % inputs.length])) {
+                Mat img = loaded.getMat();
+                ResizeInfo info;
+                switch (i % 3) {
+                    case 0:
+                        info = yolo.resizeInfo(img.size());
+                        yolo.call(img, info, loaded.getChannelOrder());
+                        break;
+                    case 1:
+                        info = doc.resizeInfo(img.size());
+                        doc.call(img, info, loaded.getChannelOrder());
+                        break;
+                    default:
+                        info = pp.resizeInfo(img.size());
+                        pp.call(img, info, loaded.getChannelOrder());
+                }
+                Mat vis = VisLayout.drawDetections(img, boxes, scores, names, 0.3f);
+                Mat crop = VisLayout.cropImage(vis, boxes.get(0));
+                vis.release();
+                crop.release();
+            }
+        }
+        long growth = rss() - baseline;
+        System.out.printf("soak: %d images, RSS growth after warmup %.1f MB%n", IMAGES, growth / 1024.0 / 1024.0);
+        Assertions.assertTrue(growth < MAX_GROWTH, "RSS 增长 " + growth + " 字节，超过 " + MAX_GROWTH);
+        source.release();
+        encoded.release();
+        rgba.release();
+    }
+}
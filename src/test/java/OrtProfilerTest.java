@@ -0,0 +1,60 @@
+import io.github.hzkitty.rapidlayout.RapidLayout;
+import io.github.hzkitty.rapidlayout.entity.ProfileReport;
+import io.github.hzkitty.rapidlayout.utils.OrtProfiler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class OrtProfilerTest {
+
+    @Test
+    public void testParse() throws Exception {
+        // 两次推理，第一次作为预热丢弃
+        String trace = "[\n"
+                + "{\"cat\":\"Session\",\"name\":\"model_run\",\"ts\":100,\"dur\":900},\n"
+                + "{\"cat\":\"Node\",\"name\":\"/conv1/Conv_kernel_time\",\"ts\":110,\"dur\":500,"
+                + "\"args\":{\"op_name\":\"Conv\",\"provider\":\"CPUExecutionProvider\"}},\n"
+                + "{\"cat\":\"Session\",\"name\":\"model_run\",\"ts\":1000,\"dur\":100},\n"
+                + "{\"cat\":\"Node\",\"name\":\"/conv1/Conv_fence_before\",\"ts\":1005,\"dur\":0,\"args\":{\"op_name\":\"Conv\"}},\n"
+                + "{\"cat\":\"Node\",\"name\":\"/conv1/Conv_kernel_time\",\"ts\":1010,\"dur\":40,"
+                + "\"args\":{\"op_name\":\"Conv\",\"provider\":\"CPUExecutionProvider\","
+                + "\"input_type_shape\":[{\"float\":[1,3,64,64]},{\"float\":[16,3,3,3]}],\"output_type_shape\":[{\"float\":[1,16,32,32]}]}},\n"
+                + "{\"cat\":\"Node\",\"name\":\"/conv2/Conv_kernel_time\",\"ts\":1050,\"dur\":20,\"args\":{\"op_name\":\"Conv\"}},\n"
+                + "{\"cat\":\"Node\",\"name\":\"/up/Resize_kernel_time\",\"ts\":1080,\"dur\":30,\"args\":{\"op_name\":\"Resize\"}}\n"
+                + "]";
+        Path file = Files.createTempFile("ort", ".json");
+        try {
+            Files.write(file, trace.getBytes(StandardCharsets.UTF_8));
+            ProfileReport report = OrtProfiler.parse(file, true);
+            Assertions.assertEquals(1, report.getRuns());
+            Assertions.assertEquals(100, report.getInferenceMicros());
+            Assertions.assertEquals("Conv", report.getOperators().get(0).getOpType());
+            Assertions.assertEquals(60, report.getOperators().get(0).getTotalMicros());
+            Assertions.assertEquals(0.6, report.getOperators().get(0).getShare(), 1e-9);
+            Assertions.assertEquals(0.3, report.getOperators().get(1).getShare(), 1e-9);
+            ProfileReport.Entry conv1 = report.getNodes().get(0);
+            Assertions.assertEquals("/conv1/Conv", conv1.getName());
+            Assertions.assertEquals(1, conv1.getCalls());
+            Assertions.assertEquals("float[1,3,64,64]", conv1.getInputShapes().get(0));
+            Assertions.assertEquals("float[1,16,32,32]", conv1.getOutputShapes().get(0));
+            Assertions.assertEquals(3, report.getNodes().size());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testProfile() throws Exception {
+        try (RapidLayout rapidLayout = RapidLayout.create()) {
+            ProfileReport report = rapidLayout.profile(new File("src/test/resources/layout.png").getAbsolutePath(), 3);
+            Assertions.assertEquals(3, report.getRuns());
+            Assertions.assertFalse(report.getOperators().isEmpty());
+            Assertions.assertTrue(report.getInferenceMicros() > 0);
+            System.out.println(report);
+        }
+    }
+}
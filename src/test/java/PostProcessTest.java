@@ -0,0 +1,141 @@
+import ai.djl.ndarray.NDManager;
+import io.github.hzkitty.rapidlayout.entity.ResizeInfo;
+import io.github.hzkitty.rapidlayout.entity.TensorView;
+import io.github.hzkitty.rapidlayout.entity.Triple;
+import io.github.hzkitty.rapidlayout.utils.OpencvLoader;
+import io.github.hzkitty.rapidlayout.utils.post.DocLayoutPostProcess;
+import io.github.hzkitty.rapidlayout.utils.post.PPPostProcess;
+import io.github.hzkitty.rapidlayout.utils.post.YOLOv8PostProcess;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Size;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+public class PostProcessTest {
+
+    private static final List<String> LABELS = Arrays.asList("a", "b", "c");
+
+    @BeforeAll
+    public static void loadOpencv() {
+        OpencvLoader.loadOpencvLib();
+    }
+
+    @Test
+    public void testYoloFlatBatch() {
+        int rows = 4 + LABELS.size();
+        int anchors = 100;
+        float[][][][] output = new float[1][2][rows][anchors];
+        // 第 0 张在锚点 10 放一个类别 1 的框，第 1 张在锚点 50 放一个类别 2 的框
+        plant(output[0][0], 10, 1, 100, 100, 20, 20, 0.9f);
+        plant(output[0][1], 50, 2, 300, 200, 40, 60, 0.8f);
+
+        FloatBuffer flat = FloatBuffer.allocate(2 * rows * anchors);
+        for (float[][] plane : output[0]) {
+            for (float[] row : plane) {
+                flat.put(row);
+            }
+        }
+        long[] shape = new long[]{2, rows, anchors};
+        ResizeInfo info = ResizeInfo.stretch(new Size(640, 640), 640, 640);
+
+        for (boolean reuse : new boolean[]{false, true}) {
+            YOLOv8PostProcess post = new YOLOv8PostProcess(LABELS, 0.5f, 0.5f, reuse);
+            Triple<List<float[]>, List<Float>, List<String>> first = post.call(flat, shape, info, 0);
+            Triple<List<float[]>, List<Float>, List<String>> second = post.call(flat, shape, info, 1);
+            Assertions.assertEquals(Arrays.asList("b"), first.getRight());
+            Assertions.assertArrayEquals(new float[]{90, 90, 110, 110}, first.getLeft().get(0), 1e-3f);
+            Assertions.assertEquals(Arrays.asList("c"), second.getRight());
+            Assertions.assertArrayEquals(new float[]{280, 170, 320, 230}, second.getLeft().get(0), 1e-3f);
+            // 多维数组入口与连续存储入口结果一致
+            assertSame(second, post.call(output, info, 1));
+        }
+    }
+
+    @Test
+    public void testDocLayoutFlatBatch() {
+        float[][][][] output = new float[1][2][3][6];
+        output[0][0][0] = new float[]{10, 20, 30, 40, 0.9f, 0};
+        output[0][1][1] = new float[]{50, 60, 70, 80, 0.7f, 2};
+        output[0][1][2] = new float[]{1, 2, 3, 4, 0.1f, 1};
+        FloatBuffer flat = FloatBuffer.allocate(2 * 3 * 6);
+        for (float[][] plane : output[0]) {
+            for (float[] row : plane) {
+                flat.put(row);
+            }
+        }
+        long[] shape = new long[]{2, 3, 6};
+        ResizeInfo info = ResizeInfo.stretch(new Size(200, 100), 100, 100);
+        DocLayoutPostProcess post = new DocLayoutPostProcess(LABELS, 0.5, 0.5);
+
+        Triple<List<float[]>, List<Float>, List<String>> first = post.call(flat, shape, info, 0);
+        Assertions.assertEquals(Arrays.asList("a"), first.getRight());
+        Assertions.assertArrayEquals(new float[]{20, 20, 60, 40}, first.getLeft().get(0), 1e-3f);
+        Triple<List<float[]>, List<Float>, List<String>> second = post.call(flat, shape, info, 1);
+        Assertions.assertEquals(Arrays.asList("c"), second.getRight());
+        Assertions.assertArrayEquals(new float[]{100, 60, 140, 80}, second.getLeft().get(0), 1e-3f);
+        assertSame(second, post.call(output, info, 1));
+    }
+
+    @Test
+    public void testPPLetterbox() {
+        // 100x50 按 64x64 letterbox，缩放 0.64 后为 64x32，上下各补 16
+        ResizeInfo info = ResizeInfo.letterbox(new Size(100, 50), 64, 64, 64);
+        Assertions.assertEquals(16, info.getPadTop());
+        int[] strides = new int[]{8, 16, 32, 64};
+        int bins = 8;
+        TensorView[] outputs = new TensorView[strides.length * 2];
+        float[][] scores = new float[strides.length][];
+        float[][] dists = new float[strides.length][];
+        for (int i = 0; i < strides.length; i++) {
+            int cells = (64 / strides[i]) * (64 / strides[i]);
+            scores[i] = new float[cells * LABELS.size()];
+            dists[i] = new float[cells * 4 * bins];
+            outputs[i] = new TensorView(FloatBuffer.wrap(scores[i]), new long[]{1, cells, LABELS.size()});
+            outputs[i + strides.length] = new TensorView(FloatBuffer.wrap(dists[i]), new long[]{1, cells, 4 * bins});
+        }
+        // stride 8 的 8x8 网格：(3, 3) 处类别 0 的框完全在图像内，(1, 6) 处类别 1 的框伸入上方补边
+        plantPP(scores[0], dists[0], 3 * 8 + 3, 0, bins);
+        plantPP(scores[0], dists[0], 8 + 6, 1, bins);
+
+        try (NDManager manager = NDManager.newBaseManager()) {
+            Triple<List<float[]>, List<Float>, List<String>> result =
+                    new PPPostProcess(LABELS, 0.5f, 0.5f).call(manager, info, outputs, 0);
+            Assertions.assertEquals(Arrays.asList("a", "b"), result.getRight());
+            // 输入坐标 (20, 20, 36, 36) -> 去补边 (20, 4, 36, 20) -> 除以 0.64
+            Assertions.assertArrayEquals(new float[]{31.25f, 6.25f, 56.25f, 31.25f}, result.getLeft().get(0), 1e-2f);
+            // 输入坐标 (44, 4, 60, 20) -> 去补边 (44, -12, 60, 4) -> 除以 0.64 后裁剪到原图
+            Assertions.assertArrayEquals(new float[]{68.75f, 0, 93.75f, 6.25f}, result.getLeft().get(1), 1e-2f);
+        }
+    }
+
+    /**
+     * 在 cell 处放一个得分 0.9 的框，四个方向的距离分布都集中在第 1 个区间（即 1 倍 stride）
+     */
+    private static void plantPP(float[] scores, float[] dists, int cell, int classId, int bins) {
+        scores[cell * LABELS.size() + classId] = 0.9f;
+        for (int side = 0; side < 4; side++) {
+            dists[(cell * 4 + side) * bins + 1] = 50;
+        }
+    }
+
+    private static void plant(float[][] plane, int anchor, int classId, float x, float y, float w, float h, float score) {
+        plane[0][anchor] = x;
+        plane[1][anchor] = y;
+        plane[2][anchor] = w;
+        plane[3][anchor] = h;
+        plane[4 + classId][anchor] = score;
+    }
+
+    private static void assertSame(Triple<List<float[]>, List<Float>, List<String>> expected,
+                                   Triple<List<float[]>, List<Float>, List<String>> actual) {
+        Assertions.assertEquals(expected.getRight(), actual.getRight());
+        Assertions.assertEquals(expected.getMiddle(), actual.getMiddle());
+        for (int i = 0; i < expected.getLeft().size(); i++) {
+            Assertions.assertArrayEquals(expected.getLeft().get(i), actual.getLeft().get(i));
+        }
+    }
+}
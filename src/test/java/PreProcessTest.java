@@ -0,0 +1,180 @@
+import io.github.hzkitty.rapidlayout.entity.LoadedImage;
+import io.github.hzkitty.rapidlayout.entity.PreProcessBackend;
+import io.github.hzkitty.rapidlayout.entity.ResizeInfo;
+import io.github.hzkitty.rapidlayout.utils.LoadImage;
+import io.github.hzkitty.rapidlayout.utils.OpencvLoader;
+import io.github.hzkitty.rapidlayout.utils.pre.ChwNormalizer;
+import io.github.hzkitty.rapidlayout.utils.pre.DocLayoutPreProcess;
+import io.github.hzkitty.rapidlayout.utils.pre.PPPreProcess;
+import io.github.hzkitty.rapidlayout.utils.pre.YOLOv8PreProcess;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.*;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+
+import java.io.File;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class PreProcessTest {
+
+    @BeforeAll
+    public static void loadOpencv() {
+        OpencvLoader.loadOpencvLib();
+    }
+
+    private static Mat readImage() {
+        File file = new File("src/test/resources/layout.png");
+        return Imgcodecs.imread(file.getAbsolutePath());
+    }
+
+    @Test
+    public void testPPLutMatchesOpencvNormalize() {
+        Mat img = readImage();
+        Size size = new Size(608, 800);
+        FloatBuffer actual = new PPPreProcess(size).call(img);
+
+        // 参考实现: convertTo + subtract + divide + permute
+        Mat expected = new Mat();
+        Imgproc.resize(img, expected, size);
+        expected.convertTo(expected, CvType.CV_32FC3, 1.0 / 255.0);
+        Core.subtract(expected, new Scalar(0.485, 0.456, 0.406), expected);
+        Core.divide(expected, new Scalar(0.229, 0.224, 0.225), expected);
+        float[] hwc = new float[(int) (expected.total() * 3)];
+        expected.get(0, 0, hwc);
+
+        int area = (int) expected.total();
+        Assertions.assertEquals(area * 3, actual.remaining());
+        for (int c = 0; c < 3; c++) {
+            for (int i = 0; i < area; i++) {
+                Assertions.assertEquals(hwc[i * 3 + c], actual.get(c * area + i));
+            }
+        }
+    }
+
+    @Test
+    public void testLetterboxPadsToStride() {
+        ResizeInfo info = ResizeInfo.letterbox(new Size(1000, 490), 1024, 1024, 32);
+        Assertions.assertEquals(1024, info.getInputWidth());
+        Assertions.assertEquals(512, info.getInputHeight());
+        Assertions.assertEquals(502, info.getResizedHeight());
+        Assertions.assertEquals(5, info.getPadTop());
+        Assertions.assertEquals(0, info.getPadLeft());
+
+        // 模型输入坐标还原到原图
+        float x = 400, y = 300;
+        Assertions.assertEquals(x, info.toOriginX(x * info.getScaleX() + info.getPadLeft()), 1e-3);
+        Assertions.assertEquals(y, info.toOriginY(y * info.getScaleY() + info.getPadTop()), 1e-3);
+    }
+
+    @Test
+    public void testLetterboxTensorLayout() {
+        Mat img = new Mat(200, 300, CvType.CV_8UC3, new Scalar(255, 255, 255));
+        YOLOv8PreProcess preProcess = new YOLOv8PreProcess(640, 640, 32, false);
+        ResizeInfo info = preProcess.resizeInfo(img.size());
+        FloatBuffer tensor = preProcess.call(img, info);
+
+        // 300x200 -> 640x427，高度补边到 448，上方补 10 行
+        Assertions.assertArrayEquals(new long[]{1, 3, 448, 640}, info.getInputShape());
+        Assertions.assertEquals(3 * 448 * 640, tensor.remaining());
+        Assertions.assertEquals(10, info.getPadTop());
+        Assertions.assertEquals(114 / 255f, tensor.get(0), 1e-6);
+        Assertions.assertEquals(1f, tensor.get(10 * 640), 1e-6);
+        Assertions.assertEquals(114 / 255f, tensor.get(447 * 640), 1e-6);
+    }
+
+    @Test
+    public void testOpencvDnnBackendMatchesJava() {
+        Mat img = readImage();
+        for (int stride : new int[]{0, 32}) {
+            for (boolean reuse : new boolean[]{false, true}) {
+                assertClose(new PPPreProcess(new Size(608, 800), stride, reuse).call(img),
+                        new PPPreProcess(new Size(608, 800), stride, reuse, PreProcessBackend.OPENCV_DNN).call(img));
+                assertClose(new YOLOv8PreProcess(640, 640, stride, reuse).call(img),
+                        new YOLOv8PreProcess(640, 640, stride, reuse, PreProcessBackend.OPENCV_DNN).call(img));
+                assertClose(new DocLayoutPreProcess(1024, 1024, stride, reuse).call(img),
+                        new DocLayoutPreProcess(1024, 1024, stride, reuse, PreProcessBackend.OPENCV_DNN).call(img));
+            }
+        }
+
+        // 写入指定 buffer 的位置
+        YOLOv8PreProcess dnn = new YOLOv8PreProcess(640, 640, 0, false, PreProcessBackend.OPENCV_DNN);
+        ResizeInfo info = dnn.resizeInfo(img.size());
+        FloatBuffer dst = FloatBuffer.allocate(3 * 640 * 640 + 1);
+        dst.put(-1f);
+        dnn.call(img, info, dst);
+        Assertions.assertEquals(dst.capacity(), dst.position());
+        dst.position(1);
+        assertClose(new YOLOv8PreProcess(640, 640).call(img), dst.slice());
+    }
+
+    private static void assertClose(FloatBuffer expected, FloatBuffer actual) {
+        Assertions.assertEquals(expected.remaining(), actual.remaining());
+        for (int i = 0; i < expected.remaining(); i++) {
+            Assertions.assertEquals(expected.get(i), actual.get(i), 1e-5, "index " + i);
+        }
+    }
+
+    @Test
+    public void testParallelStripesMatchSerial() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // 高度不能被条带整除，覆盖最后一个不满的条带
+            int height = 1001, width = 777;
+            byte[] pixels = new byte[height * width * 3];
+            new Random(7).nextBytes(pixels);
+            double[] mean = {0.485, 0.456, 0.406};
+            double[] std = {0.229, 0.224, 0.225};
+
+            ChwNormalizer serial = new ChwNormalizer(1.0 / 255.0, mean, std);
+            ChwNormalizer parallel = new ChwNormalizer(1.0 / 255.0, mean, std);
+            parallel.setParallel(pool, 0);
+
+            FloatBuffer expected = FloatBuffer.allocate(3 * height * width + 2);
+            FloatBuffer actual = FloatBuffer.allocate(3 * height * width + 2);
+            expected.position(2);
+            actual.position(2);
+            serial.apply(pixels, height, width, expected);
+            parallel.apply(pixels, height, width, actual);
+            Assertions.assertEquals(expected.position(), actual.position());
+            expected.rewind();
+            actual.rewind();
+            Assertions.assertEquals(expected, actual);
+
+            // 整体前处理
+            Mat img = readImage();
+            DocLayoutPreProcess doc = new DocLayoutPreProcess(1024, 1024);
+            doc.setParallel(pool, 0);
+            Assertions.assertEquals(new DocLayoutPreProcess(1024, 1024).call(img), doc.call(img));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testDeferredChannelSwapIsBitIdentical() throws Exception {
+        String path = new File("src/test/resources/layout.png").getAbsolutePath();
+        LoadImage loadImage = new LoadImage();
+        // 旧流程：LoadImage.call 整图交换通道后再前处理
+        Mat legacy = loadImage.call(path);
+        LoadedImage loaded = loadImage.load(path);
+        Assertions.assertNotSame(legacy, loaded.getMat());
+
+        for (PreProcessBackend backend : PreProcessBackend.values()) {
+            for (int stride : new int[]{0, 32}) {
+                PPPreProcess pp = new PPPreProcess(new Size(608, 800), stride, false, backend);
+                Assertions.assertEquals(pp.call(legacy),
+                        pp.call(loaded.getMat(), pp.resizeInfo(loaded.getMat().size()), loaded.getChannelOrder()));
+                YOLOv8PreProcess yolo = new YOLOv8PreProcess(640, 640, stride, false, backend);
+                Assertions.assertEquals(yolo.call(legacy),
+                        yolo.call(loaded.getMat(), yolo.resizeInfo(loaded.getMat().size()), loaded.getChannelOrder()));
+                DocLayoutPreProcess doc = new DocLayoutPreProcess(1024, 1024, stride, false, backend);
+                Assertions.assertEquals(doc.call(legacy),
+                        doc.call(loaded.getMat(), doc.resizeInfo(loaded.getMat().size()), loaded.getChannelOrder()));
+            }
+        }
+    }
+}
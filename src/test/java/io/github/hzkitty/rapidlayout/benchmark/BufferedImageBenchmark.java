@@ -0,0 +1,96 @@
+package io.github.hzkitty.rapidlayout.benchmark;
+
+import io.github.hzkitty.rapidlayout.utils.LoadImage;
+import io.github.hzkitty.rapidlayout.utils.OpencvLoader;
+import org.opencv.core.Mat;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BufferedImage 转 Mat 基准：按类型直接读取栅格 (direct) vs 先用 Graphics2D 重绘为 TYPE_3BYTE_BGR (redraw)，输入为 8MP 随机图像
+ * <pre>
+ * mvn -B test-compile
+ * mvn -B dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) io.github.hzkitty.rapidlayout.benchmark.BufferedImageBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BufferedImageBenchmark {
+
+    @Param({"INT_RGB", "4BYTE_ABGR", "BYTE_GRAY", "3BYTE_BGR"})
+    public String type;
+
+    private BufferedImage image;
+    private LoadImage loadImage;
+
+    @Setup
+    public void setup() {
+        OpencvLoader.loadOpencvLib();
+        int imageType;
+        switch (type) {
+            case "INT_RGB":
+                imageType = BufferedImage.TYPE_INT_RGB;
+                break;
+            case "4BYTE_ABGR":
+                imageType = BufferedImage.TYPE_4BYTE_ABGR;
+                break;
+            case "BYTE_GRAY":
+                imageType = BufferedImage.TYPE_BYTE_GRAY;
+                break;
+            default:
+                imageType = BufferedImage.TYPE_3BYTE_BGR;
+        }
+        image = new BufferedImage(3264, 2448, imageType);
+        Random random = new Random(0);
+        int[] row = new int[image.getWidth()];
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < row.length; x++) {
+                row[x] = random.nextInt();
+            }
+            image.setRGB(0, y, row.length, 1, row, 0, row.length);
+        }
+        loadImage = new LoadImage();
+    }
+
+    /**
+     * 按类型直接读取栅格数据一次写出 BGR
+     */
+    @Benchmark
+    public Mat direct() throws Exception {
+        Mat mat = loadImage.load(image).getMat();
+        mat.release();
+        return mat;
+    }
+
+    /**
+     * 原实现：Graphics2D 重绘为 TYPE_3BYTE_BGR 后整块写入
+     */
+    @Benchmark
+    public Mat redraw() throws Exception {
+        BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = converted.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        Mat mat = loadImage.load(converted).getMat();
+        mat.release();
+        return mat;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BufferedImageBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.hzkitty.rapidlayout.benchmark;
+
+import io.github.hzkitty.rapidlayout.entity.LoadedImage;
+import io.github.hzkitty.rapidlayout.entity.ResizeInfo;
+import io.github.hzkitty.rapidlayout.utils.LoadImage;
+import io.github.hzkitty.rapidlayout.utils.OpencvLoader;
+import io.github.hzkitty.rapidlayout.utils.pre.DocLayoutPreProcess;
+import org.opencv.core.*;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.opencv.imgproc.Imgproc;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大尺寸扫描件解码 + DocLayout 前处理基准：完整解码 vs 按输入尺寸缩小解码，输入为 A4 600dpi 左右 (5000x7000) 的合成文档
+ * <pre>
+ * mvn -B test-compile
+ * mvn -B dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) io.github.hzkitty.rapidlayout.benchmark.DecodeBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodeBenchmark {
+
+    @Param({".jpg", ".png"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean reduced;
+
+    private byte[] data;
+    private LoadImage loadImage;
+    private DocLayoutPreProcess pre;
+
+    @Setup
+    public void setup() {
+        OpencvLoader.loadOpencvLib();
+        // 白底加文字行和色块，接近扫描件的压缩率
+        Mat img = new Mat(7000, 5000, CvType.CV_8UC3, new Scalar(255, 255, 255));
+        for (int y = 400; y < 6600; y += 90) {
+            Imgproc.putText(img, "The quick brown fox jumps over the lazy dog 0123456789", new Point(400, y),
+                    Imgproc.FONT_HERSHEY_SIMPLEX, 2.2, new Scalar(20, 20, 20), 4);
+        }
+        Imgproc.rectangle(img, new Point(600, 2600), new Point(4400, 4200), new Scalar(200, 140, 60), -1);
+        MatOfByte buf = new MatOfByte();
+        Imgcodecs.imencode(format, img, buf);
+        data = buf.toArray();
+        img.release();
+        loadImage = new LoadImage();
+        pre = new DocLayoutPreProcess(1024, 1024, 32, true);
+    }
+
+    private Size minDecodeSize(Size ori) {
+        ResizeInfo info = pre.resizeInfo(ori);
+        return new Size(info.getResizedWidth(), info.getResizedHeight());
+    }
+
+    /**
+     * 解码 + letterbox 到 1024 + 归一化
+     */
+    @Benchmark
+    public FloatBuffer decodeAndPreProcess() throws Exception {
+        LoadedImage loaded = reduced ? loadImage.load(data, this::minDecodeSize) : loadImage.load(data);
+        ResizeInfo info = pre.resizeInfo(loaded.getOriSize());
+        FloatBuffer tensor = pre.call(loaded.getMat(), info, loaded.getChannelOrder());
+        loaded.getMat().release();
+        return tensor;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DecodeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,130 @@
+package io.github.hzkitty.rapidlayout.benchmark;
+
+import io.github.hzkitty.rapidlayout.RapidLayout;
+import io.github.hzkitty.rapidlayout.entity.LayoutConfig;
+import io.github.hzkitty.rapidlayout.entity.LayoutModelType;
+import io.github.hzkitty.rapidlayout.entity.LayoutResult;
+import io.github.hzkitty.rapidlayout.entity.ModelPrecision;
+import io.github.hzkitty.rapidlayout.utils.CpuFeatures;
+import io.github.hzkitty.rapidlayout.utils.ModelVariants;
+import io.github.hzkitty.rapidlayout.utils.post.PostUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * INT8 变体与 FP32 模型的对比：每张测试图片的中位延迟、加速比与框一致率
+ * 一致率 = 同类别且 IoU >= 0.5 一一匹配上的框数 / 两边框数的较大值，两边都没有框时为 1
+ * <pre>
+ * mvn -B test-compile
+ * mvn -B dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) io.github.hzkitty.rapidlayout.benchmark.Int8Harness \
+ *     DOCLAYOUT_DOCSTRUCTBENCH /models/doclayout_yolo_docstructbench_imgsz1024.onnx [图片目录] [每张运行次数]
+ * </pre>
+ * INT8 模型取 FP32 模型旁的 _int8.onnx，图片目录默认为 src/test/resources
+ */
+public class Int8Harness {
+
+    private static final float MATCH_IOU = 0.5f;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: Int8Harness <模型类型> <FP32 模型路径> [图片目录] [每张运行次数]");
+            System.exit(1);
+        }
+        LayoutModelType modelType = LayoutModelType.valueOf(args[0]);
+        String fp32Path = args[1];
+        String int8Path = ModelVariants.int8Path(fp32Path);
+        Path imageDir = Paths.get(args.length > 2 ? args[2] : "src/test/resources");
+        int runs = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        List<Path> images;
+        try (Stream<Path> files = Files.list(imageDir)) {
+            images = files.filter(p -> p.toString().matches("(?i).*\\.(png|jpe?g|tiff?|bmp)$"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        System.out.printf("CPU INT8 dot product (VNNI/AMX): %s, AVX2: %s%n",
+                CpuFeatures.hasInt8DotProduct(), CpuFeatures.hasAvx2());
+        System.out.printf("%-32s %10s %10s %8s %10s%n", "image", "fp32 ms", "int8 ms", "speedup", "agreement");
+
+        double fp32Total = 0;
+        double int8Total = 0;
+        double agreementTotal = 0;
+        try (RapidLayout fp32 = create(modelType, fp32Path); RapidLayout int8 = create(modelType, int8Path)) {
+            for (Path image : images) {
+                String path = image.toAbsolutePath().toString();
+                double fp32Ms = medianMillis(fp32, path, runs);
+                double int8Ms = medianMillis(int8, path, runs);
+                double agreement = agreement(fp32.run(path), int8.run(path));
+                System.out.printf("%-32s %10.1f %10.1f %7.2fx %9.1f%%%n",
+                        image.getFileName(), fp32Ms, int8Ms, fp32Ms / int8Ms, agreement * 100);
+                fp32Total += fp32Ms;
+                int8Total += int8Ms;
+                agreementTotal += agreement;
+            }
+        }
+        if (!images.isEmpty()) {
+            System.out.printf("%-32s %10.1f %10.1f %7.2fx %9.1f%%%n", "mean",
+                    fp32Total / images.size(), int8Total / images.size(), fp32Total / int8Total,
+                    agreementTotal / images.size() * 100);
+        }
+    }
+
+    private static RapidLayout create(LayoutModelType modelType, String modelPath) {
+        LayoutConfig config = new LayoutConfig();
+        config.modelType = modelType;
+        config.modelPath = modelPath;
+        // 路径已显式指定，不再按 CPU 特性替换
+        config.precision = ModelPrecision.FP32;
+        config.warmupRuns = 2;
+        return RapidLayout.create(config);
+    }
+
+    private static double medianMillis(RapidLayout layout, String image, int runs) throws Exception {
+        double[] elapse = new double[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            layout.run(image);
+            elapse[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(elapse);
+        return elapse[runs / 2];
+    }
+
+    /**
+     * 贪心匹配：按 FP32 框的顺序，为每个框找同类别、IoU 最大且未被匹配的 INT8 框
+     */
+    private static double agreement(LayoutResult expected, LayoutResult actual) {
+        int total = Math.max(expected.getBoxes().size(), actual.getBoxes().size());
+        if (total == 0) {
+            return 1;
+        }
+        boolean[] used = new boolean[actual.getBoxes().size()];
+        int matched = 0;
+        for (int i = 0; i < expected.getBoxes().size(); i++) {
+            int best = -1;
+            float bestIou = MATCH_IOU;
+            for (int j = 0; j < actual.getBoxes().size(); j++) {
+                if (used[j] || !expected.getClassNames().get(i).equals(actual.getClassNames().get(j))) {
+                    continue;
+                }
+                float iou = PostUtils.computeIou(expected.getBoxes().get(i), actual.getBoxes().get(j));
+                if (iou >= bestIou) {
+                    best = j;
+                    bestIou = iou;
+                }
+            }
+            if (best >= 0) {
+                used[best] = true;
+                matched++;
+            }
+        }
+        return (double) matched / total;
+    }
+}
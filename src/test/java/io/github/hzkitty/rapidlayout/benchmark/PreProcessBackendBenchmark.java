@@ -0,0 +1,88 @@
+package io.github.hzkitty.rapidlayout.benchmark;
+
+import io.github.hzkitty.rapidlayout.entity.PreProcessBackend;
+import io.github.hzkitty.rapidlayout.utils.OpencvLoader;
+import io.github.hzkitty.rapidlayout.utils.pre.DocLayoutPreProcess;
+import io.github.hzkitty.rapidlayout.utils.pre.PPPreProcess;
+import io.github.hzkitty.rapidlayout.utils.pre.YOLOv8PreProcess;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Size;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 整体前处理基准：Java 查表 + permute 实现 vs OpenCV dnn.blobFromImage，输入为 A4 150dpi 大小的随机图像
+ * <pre>
+ * mvn -B test-compile
+ * mvn -B dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) io.github.hzkitty.rapidlayout.benchmark.PreProcessBackendBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreProcessBackendBenchmark {
+
+    @Param({"JAVA", "OPENCV_DNN"})
+    public PreProcessBackend backend;
+
+    private Mat img;
+    private PPPreProcess pp;
+    private YOLOv8PreProcess yolo;
+    private DocLayoutPreProcess doc;
+
+    @Setup
+    public void setup() {
+        OpencvLoader.loadOpencvLib();
+        img = new Mat(1754, 1240, CvType.CV_8UC3);
+        Core.randu(img, 0, 256);
+        pp = new PPPreProcess(new Size(608, 800), 0, true, backend);
+        yolo = new YOLOv8PreProcess(640, 640, 0, true, backend);
+        doc = new DocLayoutPreProcess(1024, 1024, 0, true, backend);
+    }
+
+    @TearDown
+    public void tearDown() {
+        img.release();
+    }
+
+    /**
+     * PP 系列：resize + 缩放 + 减均值 + 除方差 + HWC->CHW
+     */
+    @Benchmark
+    public FloatBuffer pp() {
+        return pp.call(img);
+    }
+
+    /**
+     * YOLOv8：resize + 缩放 + HWC->CHW
+     */
+    @Benchmark
+    public FloatBuffer yolov8() {
+        return yolo.call(img);
+    }
+
+    /**
+     * DocLayout：BGR->RGB + resize + 缩放 + HWC->CHW
+     */
+    @Benchmark
+    public FloatBuffer doclayout() {
+        return doc.call(img);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PreProcessBackendBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
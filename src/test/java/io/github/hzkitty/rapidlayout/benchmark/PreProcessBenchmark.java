@@ -0,0 +1,82 @@
+package io.github.hzkitty.rapidlayout.benchmark;
+
+import io.github.hzkitty.rapidlayout.utils.pre.ChwNormalizer;
+import io.github.hzkitty.rapidlayout.utils.pre.PreUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预处理内核基准：标量查找表实现 vs Vector API (SIMD) 实现
+ * <p>
+ * Vector API 实现位于 multi-release jar 的 META-INF/versions/17 下，class 目录不会加载，需要基于打包后的 jar 运行（JDK 17+）：
+ * <pre>
+ * mvn -B package -DskipTests -Dgpg.skip -Dmaven.javadoc.skip
+ * mvn -B dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/rapid-layout4j-1.0.0.jar:target/test-classes:$(cat target/cp.txt) io.github.hzkitty.rapidlayout.benchmark.PreProcessBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class PreProcessBenchmark {
+
+    // 模型输入边长：640 (YOLOv8)、1024 (DocLayout)、1600 (D4LA)
+    @Param({"640", "1024", "1600"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean useVector;
+
+    private byte[] pixels;
+    private FloatBuffer tensor;
+    private ChwNormalizer ppNormalizer;
+    private ChwNormalizer scaleNormalizer;
+
+    @Setup
+    public void setup() {
+        if (useVector && !ChwNormalizer.isVectorSupported()) {
+            throw new IllegalStateException("Vector API 不可用，请基于 multi-release jar 在 JDK 17+ 上运行");
+        }
+        pixels = new byte[size * size * 3];
+        new Random(42).nextBytes(pixels);
+        tensor = PreUtils.allocateTensor(new long[]{1, 3, size, size});
+        ppNormalizer = new ChwNormalizer(1.0 / 255.0, new double[]{0.485, 0.456, 0.406},
+                new double[]{0.229, 0.224, 0.225}, useVector);
+        scaleNormalizer = new ChwNormalizer(1.0 / 255.0, null, null, useVector);
+    }
+
+    /**
+     * PP 系列：缩放 + 减均值 + 除方差 + HWC->CHW
+     */
+    @Benchmark
+    public FloatBuffer meanStdNormalize() {
+        tensor.clear();
+        ppNormalizer.apply(pixels, size, size, tensor);
+        return tensor;
+    }
+
+    /**
+     * YOLOv8 / DocLayout：缩放 + HWC->CHW
+     */
+    @Benchmark
+    public FloatBuffer scaleNormalize() {
+        tensor.clear();
+        scaleNormalizer.apply(pixels, size, size, tensor);
+        return tensor;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PreProcessBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
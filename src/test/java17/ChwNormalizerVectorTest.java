@@ -0,0 +1,93 @@
+import io.github.hzkitty.rapidlayout.utils.pre.ChwNormalizer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Vector API 内核与标量查找表实现的一致性，只在 JDK 17 profile 的 test-java17 执行中运行（类路径上为 META-INF/versions/17 的内核）
+ * 带 mean/std 时两者至多相差 1 ulp，仅做缩放时逐位相同
+ */
+public class ChwNormalizerVectorTest {
+
+    private static final double SCALE = 1.0 / 255.0;
+    private static final double[] MEAN = {0.485, 0.456, 0.406};
+    private static final double[] STD = {0.229, 0.224, 0.225};
+    // 1 与 7 小于任何车道数，只走尾部；37 不是车道数的整数倍；64 为整数倍；1001 覆盖三种相位的多次循环
+    private static final int[] WIDTHS = {1, 7, 37, 64, 1001};
+    // 写入位置不从 0 开始，验证按绝对下标写入
+    private static final int BASE = 5;
+
+    @Test
+    public void testVectorKernelLoaded() {
+        Assertions.assertTrue(ChwNormalizer.isVectorSupported(), "未加载 META-INF/versions/17 下的 Vector API 内核");
+        Assertions.assertTrue(new ChwNormalizer(SCALE, MEAN, STD, true).isUseVector());
+    }
+
+    @Test
+    public void testMeanStdWithinOneUlp() {
+        for (int width : WIDTHS) {
+            for (boolean swapRB : new boolean[]{false, true}) {
+                compare(new ChwNormalizer(SCALE, MEAN, STD, true), new ChwNormalizer(SCALE, MEAN, STD, false),
+                        9, width, swapRB, false);
+            }
+        }
+    }
+
+    @Test
+    public void testScaleOnlyBitwise() {
+        for (int width : WIDTHS) {
+            for (boolean swapRB : new boolean[]{false, true}) {
+                compare(new ChwNormalizer(SCALE, null, null, true), new ChwNormalizer(SCALE, null, null, false),
+                        9, width, swapRB, true);
+            }
+        }
+    }
+
+    @Test
+    public void testParallelStripes() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ChwNormalizer vector = new ChwNormalizer(SCALE, MEAN, STD, true);
+            vector.setParallel(pool, 0);
+            for (boolean swapRB : new boolean[]{false, true}) {
+                compare(vector, new ChwNormalizer(SCALE, MEAN, STD, false), 97, 37, swapRB, false);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void compare(ChwNormalizer vector, ChwNormalizer lut, int height, int width, boolean swapRB,
+                                boolean bitwise) {
+        Assertions.assertTrue(vector.isUseVector());
+        byte[] src = new byte[height * width * 3];
+        new Random(width * 31L + height).nextBytes(src);
+        // 每个取值都至少出现一次，覆盖查找表的全部 256 项
+        for (int i = 0; i < Math.min(256, src.length); i++) {
+            src[i] = (byte) i;
+        }
+        int size = 3 * height * width;
+        FloatBuffer actual = FloatBuffer.allocate(BASE + size);
+        FloatBuffer expected = FloatBuffer.allocate(BASE + size);
+        actual.position(BASE);
+        expected.position(BASE);
+        vector.apply(src, height, width, actual, swapRB);
+        lut.apply(src, height, width, expected, swapRB);
+        Assertions.assertEquals(BASE + size, actual.position());
+
+        for (int i = BASE; i < BASE + size; i++) {
+            float a = actual.get(i);
+            float e = expected.get(i);
+            String where = "width " + width + ", swapRB " + swapRB + ", index " + (i - BASE);
+            if (bitwise) {
+                Assertions.assertEquals(Float.floatToIntBits(e), Float.floatToIntBits(a), where);
+            } else {
+                Assertions.assertTrue(Math.abs(a - e) <= Math.ulp(Math.max(Math.abs(a), Math.abs(e))),
+                        where + ": " + a + " vs " + e);
+            }
+        }
+    }
+}